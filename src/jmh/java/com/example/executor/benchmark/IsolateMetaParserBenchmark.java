@@ -0,0 +1,46 @@
+package com.example.executor.benchmark;
+
+import com.example.executor.model.IsolateMeta;
+import com.example.executor.utility.IsolateMetaParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a typical isolate meta file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsolateMetaParserBenchmark {
+
+    private final byte[] data = String.join("\n",
+            "time:0.142",
+            "time-wall:0.201",
+            "max-rss:48212",
+            "csw-voluntary:12",
+            "csw-forced:3",
+            "cg-mem:51200",
+            "exitcode:0"
+    ).getBytes(StandardCharsets.US_ASCII);
+
+    private final IsolateMeta meta = new IsolateMeta();
+
+    @Benchmark
+    public IsolateMeta parse() {
+        IsolateMetaParser.parse(data, data.length, meta);
+        return meta;
+    }
+}
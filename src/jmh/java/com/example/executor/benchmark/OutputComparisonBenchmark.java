@@ -0,0 +1,54 @@
+package com.example.executor.benchmark;
+
+import com.example.executor.utility.StreamingOutputComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output comparison of a large, correct answer, which is read to the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputComparisonBenchmark {
+
+    @Param({"1000", "100000"})
+    private int lines;
+
+    private String expected;
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        StringBuilder expectedBuilder = new StringBuilder();
+        StringBuilder outputBuilder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            expectedBuilder.append(i).append(' ').append(i * 31L).append('\n');
+            outputBuilder.append(i).append("  ").append(i * 31L).append("\r\n");
+        }
+        expected = expectedBuilder.toString();
+        output = outputBuilder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean streamingCompare() throws IOException {
+        return StreamingOutputComparator.compare(new ByteArrayInputStream(output), expected, Long.MAX_VALUE, 1024).isMatch();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.executor.benchmark;
+
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.utility.RuntimeErrorClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runtime error detection on a bounded output snippet, for clean output and for a stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuntimeErrorPatternBenchmark {
+
+    private String cleanOutput;
+    private String exceptionOutput;
+
+    @Setup
+    public void setUp() {
+        StringBuilder clean = new StringBuilder();
+        for (int i = 0; clean.length() < 2048; i++) {
+            clean.append(i).append(' ');
+        }
+        cleanOutput = clean.toString();
+        exceptionOutput = cleanOutput.substring(0, 1024) + "\nException in thread \"main\" java.lang.ArithmeticException: / by zero\n"
+                + "\tat Main.main(Main.java:5)";
+    }
+
+    @Benchmark
+    public RuntimeErrorType cleanOutput() {
+        return RuntimeErrorClassifier.classify(cleanOutput);
+    }
+
+    @Benchmark
+    public RuntimeErrorType exceptionOutput() {
+        return RuntimeErrorClassifier.classify(exceptionOutput);
+    }
+}
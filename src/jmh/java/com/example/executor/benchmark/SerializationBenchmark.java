@@ -0,0 +1,83 @@
+package com.example.executor.benchmark;
+
+import com.example.executor.utility.Response;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result serialization for Kafka and deserialization of test case lists from Redis,
+ * with the same serializers the application uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "200"})
+    private int testCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GenericJackson2JsonRedisSerializer redisSerializer = new GenericJackson2JsonRedisSerializer();
+
+    private Response response;
+    private byte[] redisTestList;
+
+    @Setup
+    public void setUp() {
+        List<String> results = new ArrayList<>();
+        Double[] runtimes = new Double[testCount];
+        Double[] memories = new Double[testCount];
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < testCount; i++) {
+            results.add("Test case " + (i + 1) + " passed");
+            runtimes[i] = 12.5 + i;
+            memories[i] = 48.0 + i;
+
+            StringBuilder input = new StringBuilder();
+            for (int j = 0; j < 10_000; j++) {
+                input.append(j).append(' ');
+            }
+            inputs.add(input.toString());
+        }
+
+        response = new Response();
+        response.setStatus("success");
+        response.setData(results);
+        response.setSubmissionId("submission-1");
+        response.setUserId("user-1");
+        response.setProblemId(1L);
+        response.setRuntime(runtimes);
+        response.setMemory(memories);
+
+        redisTestList = redisSerializer.serialize(inputs);
+    }
+
+    @Benchmark
+    public String responseToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public Object redisTestListFromJson() {
+        return redisSerializer.deserialize(redisTestList);
+    }
+}
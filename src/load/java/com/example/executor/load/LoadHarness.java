@@ -0,0 +1,348 @@
+package com.example.executor.load;
+
+import com.example.executor.HackstackExecutionEngineApplication;
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.service.SubmissionPipeline;
+import com.example.executor.service.TestCaseLoader;
+import com.example.executor.utility.BoxIdPool;
+import com.example.executor.utility.ConcurrencyController;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test of the executor on one host: starts embedded Kafka and Redis, runs the application
+ * in-process against them, replays a corpus of submissions onto {@code code-executor} at fixed open-loop rates
+ * and reads the results back from {@code code-results}.
+ * For every rate it reports throughput, end-to-end latency percentiles, per-phase latency percentiles from the
+ * application's timers and box pool saturation, and writes the whole report as JSON.
+ *
+ * <p>Configured through system properties ({@code load.*}, see the {@code load} Maven profile). Application
+ * properties are passed on from {@code load.app-properties} ({@code key=value,key=value}) and from any
+ * {@code executor.*} or {@code spring.*} system property of the harness JVM.</p>
+ */
+@Slf4j
+public final class LoadHarness {
+
+    private static final String DEFAULT_CORPUS = "/corpus.jsonl";
+    private static final long RESULT_POLL_MILLIS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private record Pending(Step step, long sentNanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int status = 0;
+        try {
+            new LoadHarness().run();
+        } catch (Exception e) {
+            log.error("Load test failed", e);
+            status = 1;
+        }
+        // Embedded Kafka leaves non-daemon threads behind
+        System.exit(status);
+    }
+
+    private void run() throws Exception {
+        List<ObjectNode> corpus = readCorpus(property("load.corpus", ""));
+        List<Integer> rates = Arrays.stream(property("load.rates", "2,5,10").split(","))
+                .map(String::trim).map(Integer::parseInt).toList();
+        int durationSeconds = Integer.parseInt(property("load.duration-seconds", "30"));
+        int drainSeconds = Integer.parseInt(property("load.drain-seconds", "120"));
+        int warmup = Integer.parseInt(property("load.warmup", String.valueOf(corpus.size())));
+        String problems = property("load.problems", "");
+        Path reportFile = Paths.get(property("load.report", "target/load-report.json"));
+
+        Path workDir = Files.createTempDirectory("hackstack-load");
+        try (LocalStack stack = new LocalStack(workDir)) {
+            stack.start();
+            String isolatePath = stack.prepareIsolate(property("load.isolate", "auto"),
+                    Integer.parseInt(property("load.fake.run-ms", "50")),
+                    Integer.parseInt(property("load.fake.memory-kb", "32768")),
+                    Integer.parseInt(property("load.fake.tle-percent", "0")),
+                    Integer.parseInt(property("load.fake.re-percent", "0")));
+            Path problemsDir = stack.prepareProblems(problems.isEmpty() ? null : Paths.get(problems));
+
+            try (ConfigurableApplicationContext app = startApplication(stack, isolatePath, problemsDir, workDir);
+                 KafkaProducer<String, String> producer = producer(stack.getKafkaBrokers());
+                 SaturationSampler sampler = new SaturationSampler(app.getBean(BoxIdPool.class),
+                         app.getBean(SubmissionPipeline.class), app.getBean(ConcurrencyController.class))) {
+                awaitTestCases(app.getBean(TestCaseLoader.class));
+                AtomicBoolean consuming = new AtomicBoolean(true);
+                Thread consumer = new Thread(() -> consumeResults(stack.getKafkaBrokers(), consuming), "load-results");
+                consumer.setDaemon(true);
+                consumer.start();
+
+                log.info("Warming up with {} submissions", warmup);
+                Step warmupStep = new Step(0);
+                for (int i = 0; i < warmup; i++) {
+                    send(producer, corpus.get(i % corpus.size()), warmupStep);
+                }
+                warmupStep.await(drainSeconds);
+
+                MeterRegistry registry = app.getBean(MeterRegistry.class);
+                List<Map<String, Object>> steps = new ArrayList<>();
+                for (int rate : rates) {
+                    steps.add(runStep(rate, durationSeconds, drainSeconds, corpus, producer, registry, sampler));
+                }
+                consuming.set(false);
+
+                Map<String, Object> report = new LinkedHashMap<>();
+                report.put("isolate", isolatePath);
+                report.put("corpusSize", corpus.size());
+                report.put("durationSeconds", durationSeconds);
+                report.put("steps", steps);
+                Files.createDirectories(reportFile.toAbsolutePath().getParent());
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+                log.info("Load report written to {}", reportFile.toAbsolutePath());
+            }
+        } finally {
+            try (var files = Files.walk(workDir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Sends the corpus round-robin at a fixed rate for the step duration, regardless of how fast results come
+     * back, then waits for the outstanding results.
+     */
+    private Map<String, Object> runStep(int rate, int durationSeconds, int drainSeconds, List<ObjectNode> corpus,
+                                        KafkaProducer<String, String> producer, MeterRegistry registry,
+                                        SaturationSampler sampler) throws InterruptedException {
+        log.info("Sending {} submissions/s for {} s", rate, durationSeconds);
+        Step step = new Step(rate);
+        Map<String, TreeMap<Double, Double>> before = PhaseHistograms.snapshot(registry);
+        sampler.start();
+
+        ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong next = new AtomicLong();
+        step.startNanos = System.nanoTime();
+        sender.scheduleAtFixedRate(() -> send(producer, corpus.get((int) (next.getAndIncrement() % corpus.size())), step),
+                0, TimeUnit.SECONDS.toNanos(1) / rate, TimeUnit.NANOSECONDS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        sender.shutdownNow();
+        step.sendingNanos = System.nanoTime() - step.startNanos;
+
+        boolean drained = step.await(drainSeconds);
+        sampler.stop();
+        if (!drained) {
+            log.warn("{} results of the {}/s step did not arrive within {} s", step.sent.get() - step.latencies.size(), rate, drainSeconds);
+        }
+
+        Map<String, Object> summary = step.summary();
+        summary.put("phasesMs", PhaseHistograms.summarize(before, PhaseHistograms.snapshot(registry)));
+        summary.put("saturation", sampler.summary());
+        log.info("{}/s: {}", rate, summary);
+        return summary;
+    }
+
+    private void send(KafkaProducer<String, String> producer, ObjectNode template, Step step) {
+        ObjectNode submission = template.deepCopy();
+        String submissionId = "load-" + step.rate + "-" + sequence.incrementAndGet();
+        submission.put("submissionId", submissionId);
+        pending.put(submissionId, new Pending(step, System.nanoTime()));
+        step.sent.incrementAndGet();
+        producer.send(new ProducerRecord<>(ExecutorConstants.KAFKA_TOPIC_EXECUTOR, submissionId, submission.toString()));
+    }
+
+    private void consumeResults(String brokers, AtomicBoolean consuming) {
+        Map<String, Object> config = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                ConsumerConfig.GROUP_ID_CONFIG, "load-harness",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(config, new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(ExecutorConstants.KAFKA_TOPIC_RESULTS));
+            while (consuming.get()) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(RESULT_POLL_MILLIS))) {
+                    Pending sent = record.key() == null ? null : pending.remove(record.key());
+                    if (sent == null) {
+                        continue;
+                    }
+                    String verdict;
+                    try {
+                        JsonNode response = objectMapper.readTree(record.value());
+                        verdict = response.path("verdict").asText("UNKNOWN");
+                    } catch (IOException e) {
+                        verdict = "UNREADABLE";
+                    }
+                    sent.step.record(System.nanoTime() - sent.sentNanos, verdict);
+                }
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(LocalStack stack, String isolatePath, Path problemsDir, Path workDir) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.kafka.bootstrap-servers", stack.getKafkaBrokers());
+        properties.put("spring.kafka.consumer.auto-offset-reset", "earliest");
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", String.valueOf(stack.getRedisPort()));
+        properties.put("spring.data.redis.password", "");
+        properties.put("basePath", problemsDir.toString());
+        properties.put("executor.isolate.path", isolatePath);
+        properties.put("executor.input-store.dir", workDir.resolve("inputs").toString());
+        properties.put("executor.java.cds.dir", workDir.resolve("cds").toString());
+        properties.put("executor.node.startup.dir", workDir.resolve("node").toString());
+        properties.put("executor.loader.watch.enabled", "false");
+        // Replaying a corpus repeats identical submissions, which would otherwise be served from the result cache
+        properties.put("executor.result-cache.enabled", "false");
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("executor.") || name.startsWith("spring."))
+                .forEach(name -> properties.put(name, System.getProperty(name)));
+        for (String pair : property("load.app-properties", "").split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                properties.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+            }
+        }
+
+        String[] args = properties.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
+        return new SpringApplicationBuilder(HackstackExecutionEngineApplication.class)
+                .initializers(context -> context.getBeanFactory().registerSingleton("loadPhaseHistograms",
+                        PhaseHistograms.nonDecayingPhaseHistograms()))
+                .run(args);
+    }
+
+    private void awaitTestCases(TestCaseLoader testCaseLoader) throws InterruptedException {
+        while (!testCaseLoader.isInitialLoadComplete()) {
+            Thread.sleep(RESULT_POLL_MILLIS);
+        }
+        log.info("Test cases loaded: {} problems", testCaseLoader.getLoadedProblems().get() + testCaseLoader.getUnchangedProblems().get());
+    }
+
+    private KafkaProducer<String, String> producer(String brokers) {
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                ProducerConfig.LINGER_MS_CONFIG, 0);
+        return new KafkaProducer<>(config, new StringSerializer(), new StringSerializer());
+    }
+
+    private List<ObjectNode> readCorpus(String corpusPath) throws IOException {
+        List<ObjectNode> corpus = new ArrayList<>();
+        try (InputStream in = corpusPath.isEmpty()
+                ? Objects.requireNonNull(LoadHarness.class.getResourceAsStream(DEFAULT_CORPUS))
+                : Files.newInputStream(Paths.get(corpusPath));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    corpus.add((ObjectNode) objectMapper.readTree(line));
+                }
+            }
+        }
+        if (corpus.isEmpty()) {
+            throw new IllegalArgumentException("The load corpus is empty");
+        }
+        return corpus;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Submissions sent and results received during one rate step.
+     */
+    private static final class Step {
+        private final int rate;
+        private final AtomicLong sent = new AtomicLong();
+        private final List<Long> latencies = new ArrayList<>();
+        private final Map<String, Integer> verdicts = new TreeMap<>();
+        private volatile long startNanos = System.nanoTime();
+        private volatile long sendingNanos;
+        private long lastResultNanos;
+
+        private Step(int rate) {
+            this.rate = rate;
+        }
+
+        private synchronized void record(long latencyNanos, String verdict) {
+            latencies.add(latencyNanos);
+            verdicts.merge(verdict, 1, Integer::sum);
+            lastResultNanos = System.nanoTime();
+            notifyAll();
+        }
+
+        private synchronized boolean await(int seconds) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+            while (latencies.size() < sent.get()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+
+        private synchronized Map<String, Object> summary() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("targetRate", rate);
+            summary.put("sent", sent.get());
+            summary.put("completed", sorted.length);
+            summary.put("sendRate", SaturationSampler.round(sent.get() / (sendingNanos / 1e9)));
+            double elapsedSeconds = (Math.max(lastResultNanos, startNanos + sendingNanos) - startNanos) / 1e9;
+            summary.put("throughput", SaturationSampler.round(sorted.length / elapsedSeconds));
+
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMillis(sorted, 0.5));
+            latency.put("p90", percentileMillis(sorted, 0.9));
+            latency.put("p99", percentileMillis(sorted, 0.99));
+            latency.put("max", sorted.length == 0 ? 0 : SaturationSampler.round(sorted[sorted.length - 1] / 1e6));
+            summary.put("latencyMs", latency);
+            summary.put("verdicts", new TreeMap<>(verdicts));
+            return summary;
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return SaturationSampler.round(sorted[Math.max(0, index)] / 1e6);
+        }
+    }
+}
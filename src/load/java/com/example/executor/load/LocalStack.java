@@ -0,0 +1,153 @@
+package com.example.executor.load;
+
+import com.example.executor.constants.ExecutorConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * The infrastructure a load run needs on a single host without network: an embedded Kafka broker, a local
+ * Redis server, an isolate binary (the real one or the fake stand-in) and a problem bank.
+ */
+@Slf4j
+public class LocalStack implements AutoCloseable {
+
+    static final String GENERATED_PROBLEM = "load-sum";
+    private static final int GENERATED_SAMPLES = 2;
+    private static final int GENERATED_TESTS = 20;
+
+    private final Path workDir;
+    private EmbeddedKafkaKraftBroker kafka;
+    private RedisServer redis;
+    private int redisPort;
+    private String isolatePath;
+    private Path problemsDir;
+
+    public LocalStack(Path workDir) {
+        this.workDir = workDir;
+    }
+
+    /**
+     * Starts Kafka with both executor topics and a Redis server on a free port.
+     */
+    public void start() throws IOException {
+        kafka = new EmbeddedKafkaKraftBroker(1, 4, ExecutorConstants.KAFKA_TOPIC_EXECUTOR, ExecutorConstants.KAFKA_TOPIC_RESULTS);
+        kafka.afterPropertiesSet();
+        log.info("Embedded Kafka listening on {}", kafka.getBrokersAsString());
+
+        redisPort = freePort();
+        redis = RedisServer.newRedisServer().port(redisPort).bind("127.0.0.1").setting("save \"\"").build();
+        redis.start();
+        log.info("Local Redis listening on port {}", redisPort);
+    }
+
+    /**
+     * Chooses the isolate binary: "real" requires isolate on the PATH, "fake" always uses the stand-in and
+     * "auto" uses the real one when it is installed.
+     *
+     * @param mode        real, fake or auto
+     * @param runMillis   extra wall time the fake adds to every run
+     * @param memoryKb    memory the fake reports for every run
+     * @param tlePercent  share of fake runs reported as time limit exceeded
+     * @param rePercent   share of fake runs reported as runtime errors
+     * @return the isolate path to configure
+     */
+    public String prepareIsolate(String mode, int runMillis, int memoryKb, int tlePercent, int rePercent)
+            throws IOException, InterruptedException {
+        boolean realAvailable = isolateInstalled();
+        if ("real".equals(mode) && !realAvailable) {
+            throw new IllegalStateException("load.isolate=real but isolate is not installed");
+        }
+        if (!"fake".equals(mode) && realAvailable) {
+            isolatePath = "isolate";
+            log.info("Using the real isolate");
+            return isolatePath;
+        }
+
+        Path script = workDir.resolve("fake-isolate");
+        try (InputStream in = Objects.requireNonNull(getClass().getResourceAsStream("/fake-isolate.sh"))) {
+            Files.copy(in, script);
+        }
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        Files.writeString(workDir.resolve("fake-isolate.conf"), "ROOT=" + ExecutorConstants.BOX_BASE_PATH
+                + "\nRUN_MS=" + runMillis + "\nMEMORY_KB=" + memoryKb
+                + "\nTLE_PERCENT=" + tlePercent + "\nRE_PERCENT=" + rePercent + "\n");
+        Files.createDirectories(Path.of(ExecutorConstants.BOX_BASE_PATH));
+        isolatePath = script.toString();
+        log.info("Using the fake isolate ({} ms per run, {} KB, {}% TLE, {}% RE)", runMillis, memoryKb, tlePercent, rePercent);
+        return isolatePath;
+    }
+
+    /**
+     * Uses an existing problem bank, or generates {@value #GENERATED_PROBLEM}: read two integers, print their sum.
+     *
+     * @param existing problem bank directory, or null to generate one
+     * @return the problem bank directory
+     */
+    public Path prepareProblems(Path existing) throws IOException {
+        if (existing != null) {
+            problemsDir = existing.toAbsolutePath().normalize();
+            return problemsDir;
+        }
+        problemsDir = workDir.resolve("problems");
+        Path tests = problemsDir.resolve(GENERATED_PROBLEM).resolve(ExecutorConstants.DIR_TESTS);
+        Random random = new Random(42);
+        for (int i = 1; i <= GENERATED_TESTS; i++) {
+            Path dir = i <= GENERATED_SAMPLES ? tests.resolve(ExecutorConstants.DIR_SAMPLES) : tests;
+            Files.createDirectories(dir.resolve(ExecutorConstants.DIR_INPUTS));
+            Files.createDirectories(dir.resolve(ExecutorConstants.DIR_OUTPUTS));
+            long a = random.nextInt(1_000_000);
+            long b = random.nextInt(1_000_000);
+            String name = String.format("%03d.txt", i);
+            Files.writeString(dir.resolve(ExecutorConstants.DIR_INPUTS).resolve(name), a + " " + b + "\n");
+            Files.writeString(dir.resolve(ExecutorConstants.DIR_OUTPUTS).resolve(name), (a + b) + "\n");
+        }
+        return problemsDir;
+    }
+
+    public String getKafkaBrokers() {
+        return kafka.getBrokersAsString();
+    }
+
+    public int getRedisPort() {
+        return redisPort;
+    }
+
+    @Override
+    public void close() {
+        if (redis != null) {
+            try {
+                redis.stop();
+            } catch (IOException e) {
+                log.warn("Could not stop Redis: {}", e.getMessage());
+            }
+        }
+        if (kafka != null) {
+            kafka.destroy();
+        }
+    }
+
+    private static boolean isolateInstalled() throws InterruptedException {
+        try {
+            return new ProcessBuilder("isolate", "--version").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
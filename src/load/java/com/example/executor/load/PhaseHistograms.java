@@ -0,0 +1,99 @@
+package com.example.executor.load;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percentiles of the {@code executor.phase} timers over one load step, computed from the difference of two
+ * snapshots of their histogram buckets, merged across languages and problems.
+ */
+public final class PhaseHistograms {
+
+    private static final String PHASE_TIMER = "executor.phase";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    private PhaseHistograms() {
+    }
+
+    /**
+     * Keeps the phase histograms from decaying, so snapshots taken minutes apart can be subtracted.
+     *
+     * @return filter to register with the application's meter registries
+     */
+    public static MeterFilter nonDecayingPhaseHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!PHASE_TIMER.equals(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .expiry(Duration.ofDays(1))
+                        .bufferLength(1)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * Cumulative bucket counts of every phase.
+     *
+     * @param registry the application's meter registry
+     * @return per phase, bucket upper bound in milliseconds to the number of samples at or below it
+     */
+    public static Map<String, TreeMap<Double, Double>> snapshot(MeterRegistry registry) {
+        Map<String, TreeMap<Double, Double>> phases = new TreeMap<>();
+        for (Timer timer : registry.find(PHASE_TIMER).timers()) {
+            TreeMap<Double, Double> buckets = phases.computeIfAbsent(timer.getId().getTag("phase"), phase -> new TreeMap<>());
+            for (CountAtBucket bucket : timer.takeSnapshot().histogramCounts()) {
+                buckets.merge(bucket.bucket(TimeUnit.MILLISECONDS), bucket.count(), Double::sum);
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Sample count and p50/p90/p99 (bucket upper bounds, in milliseconds) of every phase between two snapshots.
+     */
+    public static Map<String, Map<String, Object>> summarize(Map<String, TreeMap<Double, Double>> before,
+                                                             Map<String, TreeMap<Double, Double>> after) {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        after.forEach((phase, buckets) -> {
+            TreeMap<Double, Double> previous = before.getOrDefault(phase, new TreeMap<>());
+            TreeMap<Double, Double> delta = new TreeMap<>();
+            buckets.forEach((bound, count) -> delta.put(bound, count - previous.getOrDefault(bound, 0.0)));
+            double total = delta.isEmpty() ? 0 : delta.lastEntry().getValue();
+            if (total <= 0) {
+                return;
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", (long) total);
+            for (double percentile : PERCENTILES) {
+                stats.put("p" + Math.round(percentile * 100), percentile(delta, total * percentile));
+            }
+            summary.put(phase, stats);
+        });
+        return summary;
+    }
+
+    private static double percentile(TreeMap<Double, Double> cumulative, double rank) {
+        for (Map.Entry<Double, Double> bucket : cumulative.entrySet()) {
+            if (bucket.getValue() >= rank) {
+                return bucket.getKey();
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.executor.load;
+
+import com.example.executor.enums.BoxState;
+import com.example.executor.service.SubmissionPipeline;
+import com.example.executor.utility.BoxIdPool;
+import com.example.executor.utility.ConcurrencyController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples box pool, pipeline queue, concurrency limit and reserved box memory while a load step runs.
+ */
+public class SaturationSampler implements AutoCloseable {
+
+    private static final long INTERVAL_MILLIS = 100;
+
+    private final BoxIdPool boxIdPool;
+    private final SubmissionPipeline submissionPipeline;
+    private final ConcurrencyController concurrencyController;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledFuture<?> task;
+    private long samples;
+    private long inUseTotal;
+    private int maxInUse;
+    private long exhaustedSamples;
+    private long queuedTotal;
+    private int maxQueued;
+    private long runningTotal;
+    private long limitTotal;
+    private long reservedKbTotal;
+
+    public SaturationSampler(BoxIdPool boxIdPool, SubmissionPipeline submissionPipeline, ConcurrencyController concurrencyController) {
+        this.boxIdPool = boxIdPool;
+        this.submissionPipeline = submissionPipeline;
+        this.concurrencyController = concurrencyController;
+    }
+
+    public synchronized void start() {
+        samples = inUseTotal = exhaustedSamples = queuedTotal = runningTotal = limitTotal = reservedKbTotal = 0;
+        maxInUse = maxQueued = 0;
+        task = scheduler.scheduleAtFixedRate(this::sample, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * @return averages and maxima over the samples taken since {@link #start()}
+     */
+    public synchronized Map<String, Object> summary() {
+        long count = Math.max(1, samples);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("boxPoolSize", boxIdPool.getSize());
+        summary.put("meanBoxesInUse", round((double) inUseTotal / count));
+        summary.put("maxBoxesInUse", maxInUse);
+        summary.put("boxPoolExhaustedPercent", round(100.0 * exhaustedSamples / count));
+        summary.put("meanQueued", round((double) queuedTotal / count));
+        summary.put("maxQueued", maxQueued);
+        summary.put("meanRunning", round((double) runningTotal / count));
+        summary.put("meanConcurrencyLimit", round((double) limitTotal / count));
+        summary.put("meanReservedMemoryMb", round(reservedKbTotal / 1024.0 / count));
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized void sample() {
+        int inUse = boxIdPool.getStateCounts().get(BoxState.IN_USE);
+        int queued = submissionPipeline.getQueuedCount();
+        samples++;
+        inUseTotal += inUse;
+        maxInUse = Math.max(maxInUse, inUse);
+        if (boxIdPool.getAvailableCount() == 0) {
+            exhaustedSamples++;
+        }
+        queuedTotal += queued;
+        maxQueued = Math.max(maxQueued, queued);
+        runningTotal += submissionPipeline.getRunningCount();
+        limitTotal += concurrencyController.getLimit();
+        reservedKbTotal += concurrencyController.getReservedKb();
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
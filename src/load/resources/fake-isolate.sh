@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+# Stand-in for isolate used by the load harness on hosts without it (see LoadHarness).
+# Boxes are plain directories under the real isolate root and the program runs unsandboxed: sandbox paths
+# mounted with --dir are translated to their host paths. The meta file reports the measured wall time plus
+# RUN_MS, a fixed MEMORY_KB, and TLE/RE verdicts drawn with TLE_PERCENT/RE_PERCENT per invocation.
+# Settings are read from fake-isolate.conf next to this script.
+
+ROOT=/var/local/lib/isolate
+RUN_MS=0
+MEMORY_KB=32768
+TLE_PERCENT=0
+RE_PERCENT=0
+conf="$(dirname "$0")/fake-isolate.conf"
+[ -f "$conf" ] && . "$conf"
+
+box=0 meta= stdin=/dev/null stderr=/dev/null action= wall=10
+mounts=()
+while [ $# -gt 0 ]; do
+  case "$1" in
+    --box-id=*) box="${1#*=}" ;;
+    --meta=*) meta="${1#*=}" ;;
+    --stdin=*) stdin="${1#*=}" ;;
+    --stderr=*) stderr="${1#*=}" ;;
+    --wall-time=*) wall="${1#*=}" ;;
+    --dir=*) spec="${1#--dir=}"; mounts+=("${spec%%:*}") ;;
+    --init|--cleanup|--run) action="$1" ;;
+    --) shift; break ;;
+  esac
+  shift
+done
+
+boxdir="$ROOT/$box/box"
+case "$action" in
+  --init) mkdir -p "$boxdir" && echo "$ROOT/$box"; exit $? ;;
+  --cleanup) rm -rf "${ROOT:?}/$box"; exit 0 ;;
+  --run) ;;
+  *) echo "fake-isolate: unsupported action" >&2; exit 2 ;;
+esac
+
+# Rewrites a sandbox path (alone or after '=' in a JVM flag) to the host directory mounted there
+translate() {
+  local value="$1" mount inside outside
+  for mount in "${mounts[@]}"; do
+    inside="${mount%%=*}"
+    outside="${mount#*=}"
+    [ "$inside" = "$outside" ] && continue
+    if [ "$value" = "$inside" ]; then
+      value="$outside"
+    elif [ "${value#"$inside"/}" != "$value" ]; then
+      value="$outside/${value#"$inside"/}"
+    elif [ "${value#*="$inside"/}" != "$value" ]; then
+      value="${value%%="$inside"/*}=$outside/${value#*="$inside"/}"
+    fi
+  done
+  printf '%s' "$value"
+}
+
+command=()
+for argument in "$@"; do
+  command+=("$(translate "$argument")")
+done
+
+cd "$boxdir" || exit 2
+start=$(date +%s%N)
+timeout --signal=KILL "$wall" "${command[@]}" < "$(translate "$stdin")" 2> "$stderr"
+exitcode=$?
+[ "$RUN_MS" -gt 0 ] && sleep "$(( RUN_MS / 1000 )).$(printf '%03d' $(( RUN_MS % 1000 )))"
+elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+
+status=
+roll=$(( RANDOM % 100 ))
+if [ "$exitcode" -eq 137 ] || [ "$roll" -lt "$TLE_PERCENT" ]; then
+  status=TO
+elif [ "$exitcode" -ne 0 ] || [ "$roll" -lt $(( TLE_PERCENT + RE_PERCENT )) ]; then
+  status=RE
+  [ "$exitcode" -eq 0 ] && exitcode=1
+fi
+
+if [ -n "$meta" ]; then
+  {
+    printf 'time:%d.%03d\n' $(( elapsed / 1000 )) $(( elapsed % 1000 ))
+    printf 'time-wall:%d.%03d\n' $(( elapsed / 1000 )) $(( elapsed % 1000 ))
+    echo "max-rss:$MEMORY_KB"
+    echo "cg-mem:$MEMORY_KB"
+    echo "exitcode:$exitcode"
+    [ -n "$status" ] && echo "status:$status"
+  } > "$meta"
+fi
+[ -n "$status" ] && exit 1
+exit 0
@@ -13,7 +13,7 @@ public final class ExecutorConstants {
     public static final String BOX_BASE_PATH = "/var/local/lib/isolate/";
     public static final int MAX_BOX_ID = 100;
 
-    // Execution Limits
+    // Execution Limits (defaults; a problem's problem.yaml can lower or raise them per language)
     public static final int TIME_LIMIT = 5;
     public static final int WALL_TIME_LIMIT = 10;
     public static final int MEMORY_LIMIT = 1048576; // 1GB in KB - required for JVM memory allocation
@@ -28,16 +28,36 @@ public final class ExecutorConstants {
     public static final String JAVA_MAIN_FILE = "Main.java";
     public static final String JS_MAIN_FILE = "main.js";
     public static final String INPUT_FILE = "input.txt";
+    public static final String META_FILE = "meta.txt";
+    public static final String STDERR_FILE = "stderr.txt";
+    public static final String PROBLEM_LIMITS_FILE = "problem.yaml";
+
+    // Multi-test Judge Harness
+    public static final String HARNESS_INPUT_PREFIX = "input_";
+    public static final String HARNESS_OUTPUT_PREFIX = "output_";
+    public static final String HARNESS_ERROR_PREFIX = "error_";
+    public static final String HARNESS_EXPECTED_PREFIX = "expected_";
+    public static final String HARNESS_FILE_SUFFIX = ".txt";
+    public static final String HARNESS_REPORT_FILE = "harness.txt";
 
     // Redis Keys
     public static final String REDIS_PROBLEM_PREFIX = "problem:";
     public static final String REDIS_INPUTS_SUFFIX = ":inputs";
     public static final String REDIS_OUTPUTS_SUFFIX = ":outputs";
+    public static final String REDIS_VERSION_SUFFIX = ":version";
+    public static final String REDIS_MANIFEST_SUFFIX = ":manifest";
+    public static final String REDIS_TESTS_SUFFIX = ":tests:";
+    public static final String REDIS_INPUT_FIELD_PREFIX = "in:";
+    public static final String REDIS_OUTPUT_FIELD_PREFIX = "out:";
+    public static final String REDIS_CHANNEL_PROBLEM_UPDATES = "problem-updates";
+    public static final String REDIS_COMPILE_PREFIX = "compile:";
+    public static final String REDIS_RESULT_PREFIX = "result:";
 
     // Kafka Topics
     public static final String KAFKA_TOPIC_EXECUTOR = "code-executor";
     public static final String KAFKA_TOPIC_RESULTS = "code-results";
     public static final String KAFKA_CONSUMER_GROUP = "code-executor-group";
+    public static final String KAFKA_LISTENER_ID = "code-executor-listener";
 
     // Response Status
     public static final String STATUS_SUCCESS = "SUCCESS";
@@ -47,15 +67,29 @@ public final class ExecutorConstants {
     public static final String DIR_TESTS = "tests";
     public static final String DIR_INPUTS = "inputs";
     public static final String DIR_OUTPUTS = "outputs";
+    public static final String DIR_SAMPLES = "samples";
 
     // Java Memory Settings (optimized for low-memory systems with 1GB sandbox limit)
     // Aggressive memory reduction to fit within isolate sandbox
-    public static final String JAVA_MEM_MAX = "-Xmx64m";
-    public static final String JAVA_MEM_MIN = "-Xms32m";
+    public static final int JAVA_HEAP_MB = 64;
+    public static final String JAVA_MEM_MAX = "-Xmx" + JAVA_HEAP_MB + "m";
+    public static final int JAVA_HEAP_MIN_MB = 32;
+    public static final String JAVA_MEM_MIN = "-Xms" + JAVA_HEAP_MIN_MB + "m";
     public static final String JAVA_METASPACE = "-XX:MaxMetaspaceSize=32m";
     public static final String JAVA_METASPACE_MIN = "-XX:MetaspaceSize=16m";
     public static final String JAVA_CODE_CACHE = "-XX:ReservedCodeCacheSize=16m";
     public static final String JAVA_DISABLE_COMPRESSED_CLASS = "-XX:-UseCompressedClassPointers";
     public static final String JAVA_GC = "-XX:+UseSerialGC";
     public static final String JAVA_TIERED_COMPILATION = "-XX:TieredStopAtLevel=1";
+
+    // Class Data Sharing (JDK 17 CDS needs compressed class pointers, so the class space is capped instead)
+    public static final String JAVA_CDS_CLASS_SPACE = "-XX:CompressedClassSpaceSize=16m";
+    public static final String CDS_ARCHIVE_FILE = "judge.jsa";
+    public static final String CDS_SANDBOX_DIR = "/cds";
+    public static final String INPUT_STORE_SANDBOX_DIR = "/inputs";
+
+    // Node.js startup (loader with a per-box V8 code cache, optionally inside a startup snapshot)
+    public static final String NODE_LOADER_FILE = "judge-loader.js";
+    public static final String NODE_SNAPSHOT_FILE = "judge.blob";
+    public static final String NODE_SANDBOX_DIR = "/node-startup";
 }
@@ -0,0 +1,12 @@
+package com.example.executor.enums;
+
+/**
+ * Lifecycle states of an isolate box managed by the box pool.
+ */
+public enum BoxState {
+    IDLE,         // Not initialized, needs isolate --init before use
+    READY,        // Initialized and waiting to be handed out
+    IN_USE,       // Handed out to an execution
+    CLEANING,     // Being cleaned up and re-initialized in the background
+    QUARANTINED   // Cleanup failed; kept out of rotation
+}
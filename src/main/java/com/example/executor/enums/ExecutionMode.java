@@ -0,0 +1,33 @@
+package com.example.executor.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+
+/**
+ * How much of a problem's tests a submission is judged against.
+ */
+@Slf4j
+public enum ExecutionMode {
+    FULL,       // Every test; only a runtime error, time or memory limit stops the run
+    FAIL_FAST,  // Every test, stopping at the first test that does not pass
+    SAMPLE;     // Only the sample tests, for "Run" without submitting; hidden tests are never fetched
+
+    /**
+     * Parses a mode case-insensitively; submissions without a mode, or with one this executor does not know,
+     * are judged in full rather than failing to deserialize.
+     */
+    @JsonCreator
+    public static ExecutionMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown execution mode '{}', judging in full", value);
+            return FULL;
+        }
+    }
+}
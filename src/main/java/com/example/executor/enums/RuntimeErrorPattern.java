@@ -5,7 +5,7 @@ import java.util.List;
 
 /**
  * Defines patterns for identifying runtime errors in code execution output.
- * This enum provides a structured and maintainable way to detect various types of runtime errors.
+ * The substrings of every category are matched in one pass by the runtime error classifier.
  */
 public enum RuntimeErrorPattern {
 
@@ -20,6 +20,11 @@ public enum RuntimeErrorPattern {
         "hs_err_pid"
     )),
 
+    OUT_OF_MEMORY(Arrays.asList(
+        "java.lang.OutOfMemoryError",
+        "JavaScript heap out of memory"
+    )),
+
     JAVA_EXCEPTION(Arrays.asList(
         "Exception in thread",
         "at java.",
@@ -43,47 +48,9 @@ public enum RuntimeErrorPattern {
     }
 
     /**
-     * Checks if the output matches any pattern in this category.
-     *
-     * @param output the execution output to check
-     * @return true if any pattern matches, false otherwise
-     */
-    public boolean matches(String output) {
-        if (output == null || output.isEmpty()) {
-            return false;
-        }
-
-        // Special case for JAVA_EXCEPTION
-        if (this == JAVA_EXCEPTION) {
-            return output.contains("Exception in thread") ||
-                   output.contains("at java.") ||
-                   output.contains("at sun.") ||
-                   (output.contains("java.lang.") &&
-                    (output.contains("Exception") || output.contains("Error")));
-        }
-
-        // Special case for PROCESS_EXIT_ERROR
-        if (this == PROCESS_EXIT_ERROR) {
-            return output.contains("Process exited with code:") &&
-                   !output.contains("code: 0");
-        }
-
-        // Default: check if output contains any of the patterns
-        return patterns.stream().anyMatch(output::contains);
-    }
-
-    /**
-     * Checks if the output matches any runtime error pattern.
-     *
-     * @param output the execution output to check
-     * @return true if the output indicates a runtime error, false otherwise
+     * @return the substrings that indicate this category
      */
-    public static boolean isRuntimeError(String output) {
-        if (output == null || output.isEmpty()) {
-            return false;
-        }
-
-        return Arrays.stream(RuntimeErrorPattern.values())
-                .anyMatch(pattern -> pattern.matches(output));
+    public List<String> getPatterns() {
+        return patterns;
     }
 }
@@ -0,0 +1,14 @@
+package com.example.executor.enums;
+
+/**
+ * Kind of runtime error a sandbox run ended with, from its output and the isolate meta file.
+ */
+public enum RuntimeErrorType {
+    NONE,                // The program ran normally
+    JVM_INIT_FAILURE,    // The JVM could not start, usually because of the memory limit
+    OUT_OF_MEMORY,       // The program ran out of memory
+    UNCAUGHT_EXCEPTION,  // The program threw an exception it did not catch
+    SEGMENTATION_FAULT,  // The program or its runtime crashed (SIGSEGV, core dump, fatal error)
+    KILLED_BY_SIGNAL,    // The program was terminated by another signal
+    NON_ZERO_EXIT        // The program exited with a non-zero exit code
+}
@@ -0,0 +1,15 @@
+package com.example.executor.enums;
+
+/**
+ * Verdict codes reported to consumers, per test case and for the whole submission.
+ */
+public enum Verdict {
+    AC,   // Accepted: output matched
+    WA,   // Wrong answer
+    TLE,  // Time limit exceeded
+    MLE,  // Memory limit exceeded
+    RE,   // Runtime error
+    OLE,  // Output limit exceeded
+    CE,   // Compilation error
+    IE    // Internal error: the submission could not be judged
+}
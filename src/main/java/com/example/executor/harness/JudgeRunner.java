@@ -0,0 +1,213 @@
+package com.example.executor.harness;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Multi-test judge runner executed inside the isolate sandbox.
+ * Loads the submission's {@code Main} class once per test case through a fresh class loader,
+ * so static state never leaks between tests, while paying for JVM startup only once.
+ *
+ * <p>This class is copied verbatim into the box, so it must depend on nothing but the JDK
+ * and must not declare nested or anonymous classes.</p>
+ *
+ * <p>Usage: {@code JudgeRunner <testCount> <cpuLimitMs> <wallLimitMs> <inputDir> <firstInput> [failFast]}. Test {@code i}
+ * reads {@code <inputDir>/input_<firstInput + i>.txt} and writes its stdout to {@code output_i.txt} and its stderr to {@code error_i.txt};
+ * one line per finished test is appended to {@code harness.txt} as
+ * {@code <index> <OK|RE|MLE|TLE> <cpuMillis> <memoryKb>}. Tests without a
+ * report line (e.g. the user called {@code System.exit}) are re-run by the executor one by one.
+ * With {@code failFast} the runner also stops after the first output that differs from {@code expected_i.txt},
+ * ignoring whitespace like the executor does; the executor still makes the final comparison.</p>
+ */
+public final class JudgeRunner {
+
+    private static final String REPORT_FILE = "harness.txt";
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+    private static final Path PROC_CLEAR_REFS = Paths.get("/proc/self/clear_refs");
+
+    private JudgeRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int testCount = Integer.parseInt(args[0]);
+        long cpuLimitNanos = Long.parseLong(args[1]) * 1_000_000L;
+        long wallLimitMillis = Long.parseLong(args[2]);
+        String inputDir = args[3];
+        int firstInput = Integer.parseInt(args[4]);
+        boolean failFast = args.length > 5 && Boolean.parseBoolean(args[5]);
+
+        URL[] classPath = {Paths.get("").toAbsolutePath().toUri().toURL()};
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        try (Writer report = new FileWriter(REPORT_FILE, false)) {
+            for (int i = 0; i < testCount; i++) {
+                resetPeakMemory();
+
+                long[] cpuNanos = new long[1];
+                Throwable[] failure = new Throwable[1];
+
+                try (InputStream in = new BufferedInputStream(new FileInputStream(inputDir + "/input_" + (firstInput + i) + ".txt"));
+                     PrintStream out = new PrintStream(new FileOutputStream("output_" + i + ".txt"), false);
+                     PrintStream err = new PrintStream(new FileOutputStream("error_" + i + ".txt"), false);
+                     URLClassLoader loader = new URLClassLoader(classPath, ClassLoader.getPlatformClassLoader())) {
+                    System.setIn(in);
+                    System.setOut(out);
+                    System.setErr(err);
+
+                    Method mainMethod = loader.loadClass("Main").getMethod("main", String[].class);
+                    Thread worker = new Thread(() -> {
+                        long start = threads.getCurrentThreadCpuTime();
+                        try {
+                            mainMethod.invoke(null, (Object) new String[0]);
+                        } catch (InvocationTargetException e) {
+                            failure[0] = e.getCause();
+                        } catch (Throwable t) {
+                            failure[0] = t;
+                        } finally {
+                            cpuNanos[0] = threads.getCurrentThreadCpuTime() - start;
+                        }
+                    }, "main");
+                    worker.setContextClassLoader(loader);
+                    worker.start();
+                    worker.join(wallLimitMillis);
+
+                    if (worker.isAlive() || cpuNanos[0] > cpuLimitNanos) {
+                        out.flush();
+                        err.flush();
+                        writeReport(report, i, "TLE", cpuLimitNanos, readPeakMemoryKb());
+                        Runtime.getRuntime().halt(1);
+                    }
+
+                    if (failure[0] != null) {
+                        trimReflectionFrames(failure[0]);
+                        err.print("Exception in thread \"main\" ");
+                        failure[0].printStackTrace(err);
+                    }
+                    out.flush();
+                    err.flush();
+                } finally {
+                    System.setOut(originalOut);
+                    System.setErr(originalErr);
+                }
+
+                writeReport(report, i, status(failure[0]), cpuNanos[0], readPeakMemoryKb());
+                if (failure[0] != null) {
+                    // The executor stops at the first runtime error, so there is no point in going on
+                    break;
+                }
+                if (failFast && !matchesExpected(i)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static String status(Throwable failure) {
+        if (failure == null) {
+            return "OK";
+        }
+        return failure instanceof OutOfMemoryError ? "MLE" : "RE";
+    }
+
+    /**
+     * Compares a test's output with its expected output, skipping whitespace on both sides.
+     * Whitespace is ASCII in UTF-8, so comparing the remaining bytes is the same as comparing characters.
+     */
+    private static boolean matchesExpected(int index) throws IOException {
+        try (InputStream actual = new BufferedInputStream(new FileInputStream("output_" + index + ".txt"));
+             InputStream expected = new BufferedInputStream(new FileInputStream("expected_" + index + ".txt"))) {
+            while (true) {
+                int a = nextNonWhitespace(actual);
+                int e = nextNonWhitespace(expected);
+                if (a != e) {
+                    return false;
+                }
+                if (a == -1) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static int nextNonWhitespace(InputStream in) throws IOException {
+        int b;
+        do {
+            b = in.read();
+        } while (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B);
+        return b;
+    }
+
+    private static void writeReport(Writer report, int index, String status, long cpuNanos, long memoryKb) throws IOException {
+        report.write(index + " " + status + " " + (cpuNanos / 1_000_000.0) + " " + memoryKb + "\n");
+        report.flush();
+    }
+
+    /**
+     * Drops the runner's reflective call frames so the stack trace looks like a plain {@code java Main} run.
+     */
+    private static void trimReflectionFrames(Throwable failure) {
+        StackTraceElement[] frames = failure.getStackTrace();
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i].getClassName().startsWith("jdk.internal.reflect.")) {
+                failure.setStackTrace(Arrays.copyOf(frames, i));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resets the peak RSS counter of this process (Linux clear_refs "5") and the heap pool peaks,
+     * so the next reading only reflects the upcoming test case.
+     */
+    private static void resetPeakMemory() {
+        try {
+            Files.writeString(PROC_CLEAR_REFS, "5");
+        } catch (Exception ignored) {
+            // Not available in every sandbox; the heap pool peaks below are the fallback
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        System.gc();
+    }
+
+    private static long readPeakMemoryKb() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (Exception ignored) {
+            // Fall through to the heap pool peaks
+        }
+
+        long peakBytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peakBytes / 1024;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.executor.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Output of compiling a submission: either the produced class files or the compiler diagnostics.
+ * Timeouts and compiler crashes are transient failures: they say nothing about the source and are never cached.
+ */
+@Data
+@NoArgsConstructor
+public class CompiledArtifact {
+    private Map<String, byte[]> classFiles;  // Path relative to the box -> class bytes
+    private String diagnostics;
+    @JsonIgnore
+    private boolean transientFailure;
+
+    public CompiledArtifact(Map<String, byte[]> classFiles, String diagnostics) {
+        this.classFiles = classFiles;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * A failure of the compiler rather than of the source.
+     *
+     * @param message what went wrong
+     * @return an uncacheable artifact carrying the message as diagnostics
+     */
+    public static CompiledArtifact transientFailure(String message) {
+        CompiledArtifact artifact = new CompiledArtifact(Map.of(), message);
+        artifact.setTransientFailure(true);
+        return artifact;
+    }
+
+    @JsonIgnore
+    public boolean isSuccessful() {
+        return diagnostics == null || diagnostics.trim().isEmpty();
+    }
+}
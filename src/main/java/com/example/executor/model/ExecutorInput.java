@@ -1,5 +1,6 @@
 package com.example.executor.model;
 
+import com.example.executor.enums.ExecutionMode;
 import lombok.Data;
 
 @Data
@@ -10,4 +11,12 @@ public class ExecutorInput {
     private String problemName;
     private String userId;
     private String submissionId;
+    private ExecutionMode mode;
+
+    /**
+     * @return the execution mode, FULL for submissions that do not specify one
+     */
+    public ExecutionMode getMode() {
+        return mode == null ? ExecutionMode.FULL : mode;
+    }
 }
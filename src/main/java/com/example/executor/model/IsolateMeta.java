@@ -0,0 +1,33 @@
+package com.example.executor.model;
+
+import lombok.Data;
+
+/**
+ * Resource usage and exit status isolate reported for one sandbox run.
+ * Holds primitives only, so one instance can be refilled by the parser for every run.
+ */
+@Data
+public class IsolateMeta {
+    private double runtime;     // CPU time in milliseconds
+    private double wallTime;    // Wall clock time in milliseconds
+    private double memory;      // Peak memory in MB (cg-mem, or max-rss without cgroups)
+    private String status;      // RE, SG, TO or XX; null if the program exited normally with code 0
+    private int exitCode;       // Exit code of the program, 0 if it did not exit normally
+    private int exitSignal;     // Signal that terminated the program, 0 if none
+    private boolean killed;     // The sandbox killed the program (time limit or signal)
+    private boolean oomKilled;  // The cgroup memory limit killed the program
+
+    /**
+     * Clears all fields before the next run is parsed into this instance.
+     */
+    public void reset() {
+        runtime = 0.0;
+        wallTime = 0.0;
+        memory = 0.0;
+        status = null;
+        exitCode = 0;
+        exitSignal = 0;
+        killed = false;
+        oomKilled = false;
+    }
+}
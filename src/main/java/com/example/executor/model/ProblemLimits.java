@@ -0,0 +1,47 @@
+package com.example.executor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Sandbox limits a problem sets in its {@code problem.yaml}, stored in the {@link TestManifest}.
+ * Unset fields fall back to the language's entry in {@code languages}, then to the global defaults.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemLimits {
+    private Integer timeMs;         // CPU time per test
+    private Integer wallTimeMs;     // Wall clock time per test
+    private Integer memoryMb;       // isolate memory limit of the box
+    private Integer heapMb;         // Java heap (-Xmx), must leave room for the JVM within memoryMb
+    private Integer processes;      // Processes and threads in the box
+    private Map<String, ProblemLimits> languages;   // Overrides by language identifier
+
+    /**
+     * Effective limits for one language.
+     *
+     * @param language the submission language
+     * @return the limits, with defaults for everything the problem does not set
+     */
+    public ResourceLimits resolve(String language) {
+        ProblemLimits override = languages == null ? null : languages.get(ResourceLimits.languageKey(language));
+        ResourceLimits defaults = ResourceLimits.DEFAULT;
+        return new ResourceLimits(
+                pick(override == null ? null : override.timeMs, timeMs, defaults.timeMillis()),
+                pick(override == null ? null : override.wallTimeMs, wallTimeMs, defaults.wallTimeMillis()),
+                pick(override == null ? null : override.memoryMb, memoryMb, defaults.memoryKb() / 1024) * 1024L,
+                (int) pick(override == null ? null : override.heapMb, heapMb, defaults.heapMb()),
+                (int) pick(override == null ? null : override.processes, processes, defaults.processes()));
+    }
+
+    private static long pick(Integer language, Integer problem, long fallback) {
+        if (language != null) {
+            return language;
+        }
+        return problem != null ? problem : fallback;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.executor.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Test inputs and expected outputs of one problem version. Tests are fetched from Redis on first use,
+ * in batches starting at the requested test, and kept afterwards; tests a run never reaches are never fetched.
+ * Batches never cross from the sample tests into the hidden ones.
+ * Safe for concurrent use by the shards of a submission.
+ */
+@Getter
+public class ProblemTestData {
+
+    /**
+     * Fetches the inputs or outputs of the tests {@code [from, to)} in one round trip.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        List<String> fetch(TestManifest manifest, boolean inputs, int from, int to);
+    }
+
+    private final String problemName;
+    private final TestManifest manifest;
+    private final long sizeBytes;   // Approximate heap footprint once every test is fetched
+
+    @Getter(AccessLevel.NONE)
+    private final Fetcher fetcher;
+    @Getter(AccessLevel.NONE)
+    private final int batchSize;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReferenceArray<String> inputs;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReferenceArray<String> outputs;
+
+    public ProblemTestData(String problemName, TestManifest manifest, long sizeBytes, int batchSize, Fetcher fetcher) {
+        this.problemName = problemName;
+        this.manifest = manifest;
+        this.sizeBytes = sizeBytes;
+        this.batchSize = Math.max(1, batchSize);
+        this.fetcher = fetcher;
+        this.inputs = new AtomicReferenceArray<>(manifest.getTestCount());
+        this.outputs = new AtomicReferenceArray<>(manifest.getTestCount());
+    }
+
+    public String getVersion() {
+        return manifest.getVersion();
+    }
+
+    public int getTestCount() {
+        return manifest.getTestCount();
+    }
+
+    /**
+     * @return number of sample tests, which come first in test order
+     */
+    public int getSampleCount() {
+        return manifest.getSampleCount();
+    }
+
+    /**
+     * Sandbox limits of this problem for a language.
+     *
+     * @param language the submission language
+     * @return the problem's limits, the defaults where it sets none
+     */
+    public ResourceLimits limitsFor(String language) {
+        return manifest.getLimits() == null ? ResourceLimits.DEFAULT : manifest.getLimits().resolve(language);
+    }
+
+    public String getInput(int index) {
+        return get(inputs, true, index);
+    }
+
+    public String getOutput(int index) {
+        return get(outputs, false, index);
+    }
+
+    /**
+     * Inputs of a range of tests, fetching the missing ones in batches.
+     *
+     * @param from first test index (inclusive)
+     * @param to   last test index (exclusive)
+     * @return the inputs in test order
+     */
+    public List<String> getInputs(int from, int to) {
+        List<String> range = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            range.add(get(inputs, true, i));
+        }
+        return range;
+    }
+
+    /**
+     * Fetches the first batch of inputs and outputs of the tests {@code [0, to)} in each partition they reach,
+     * so that submissions starting on this data together do not each fetch the same tests. Later batches are
+     * fetched by the first run that reaches them and shared from then on, like any other test.
+     *
+     * @param to last test index (exclusive)
+     */
+    public void prefetch(int to) {
+        for (int first : new int[]{0, manifest.getSampleCount()}) {
+            if (first < to) {
+                get(inputs, true, first);
+                get(outputs, false, first);
+            }
+        }
+    }
+
+    private String get(AtomicReferenceArray<String> values, boolean input, int index) {
+        String value = values.get(index);
+        if (value != null) {
+            return value;
+        }
+        // Prefetch the following tests too: a run that needs this test most likely needs the next ones
+        int partitionEnd = index < manifest.getSampleCount() ? manifest.getSampleCount() : values.length();
+        int to = Math.min(partitionEnd, index + batchSize);
+        List<String> fetched = fetcher.fetch(manifest, input, index, to);
+        for (int i = 0; i < fetched.size(); i++) {
+            values.compareAndSet(index + i, null, fetched.get(i));
+        }
+        return values.get(index);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.executor.model;
+
+import com.example.executor.constants.ExecutorConstants;
+
+import java.util.Locale;
+
+/**
+ * Limits of one run after defaults and language overrides are applied.
+ *
+ * @param timeMillis     CPU time per test
+ * @param wallTimeMillis wall clock time per test
+ * @param memoryKb       isolate memory limit, also what a box reserves from the memory budget
+ * @param heapMb         Java heap
+ * @param processes      processes and threads
+ */
+public record ResourceLimits(long timeMillis, long wallTimeMillis, long memoryKb, int heapMb, int processes) {
+
+    public static final ResourceLimits DEFAULT = new ResourceLimits(ExecutorConstants.TIME_LIMIT * 1000L,
+            ExecutorConstants.WALL_TIME_LIMIT * 1000L, ExecutorConstants.MEMORY_LIMIT, ExecutorConstants.JAVA_HEAP_MB,
+            ExecutorConstants.MAX_PROCESSES);
+
+    /**
+     * Key of a language in {@link ProblemLimits#getLanguages()}; {@code js} and {@code javascript} share one entry.
+     *
+     * @param language the submission language
+     * @return the lower-case key
+     */
+    public static String languageKey(String language) {
+        if (language == null) {
+            return null;
+        }
+        String key = language.toLowerCase(Locale.ROOT);
+        return ExecutorConstants.LANG_JS.equals(key) ? ExecutorConstants.LANG_JAVASCRIPT : key;
+    }
+}
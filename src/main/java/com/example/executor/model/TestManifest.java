@@ -0,0 +1,25 @@
+package com.example.executor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes one version of a problem's tests in Redis. The tests themselves are compressed fields of the
+ * version's hash; sizes and checksums are uncompressed values, indexed by test.
+ * The first {@code sampleCount} tests are the sample partition, the rest are hidden.
+ * {@code limits} is null for problems without a {@code problem.yaml}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestManifest {
+    private String version;
+    private int testCount;
+    private int sampleCount;
+    private int[] inputSizes;
+    private int[] outputSizes;
+    private long[] inputChecksums;
+    private long[] outputChecksums;
+    private ProblemLimits limits;
+}
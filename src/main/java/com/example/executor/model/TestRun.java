@@ -0,0 +1,22 @@
+package com.example.executor.model;
+
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of running one test case in a sandbox and comparing its output against the expected output.
+ */
+@Data
+@AllArgsConstructor
+public class TestRun {
+    private int index;
+    private Verdict status;  // AC, WA, RE, MLE, TLE or OLE
+    private double runtime;  // CPU time in milliseconds
+    private double memory;   // Peak memory in MB
+    private String output;   // Bounded snippet of the program's stdout
+    private String error;    // Bounded snippet of the program's stderr
+    private boolean passed;  // Output matched the expected output
+    private RuntimeErrorType errorType;  // How the run failed, NONE unless the status is RE or MLE
+}
@@ -0,0 +1,298 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.utility.ProcessRunner;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds and maintains a Class Data Sharing archive for the sandboxed Java runtime.
+ * The archive is dumped from a representative judge workload, bind-mounted read-only into every box
+ * and passed to the sandboxed JVM, which then maps the JDK classes instead of loading and verifying them.
+ * The archive is fingerprinted against the detected java binary and JVM flags and rebuilt when stale;
+ * until a valid archive exists, runs fall back to the plain JVM flags.
+ */
+@Slf4j
+@Service
+public class CdsArchiveManager {
+
+    private static final String FINGERPRINT_FILE = "judge.fingerprint";
+    private static final String CLASS_LIST_FILE = "judge.classlist";
+    private static final String STAGING_PREFIX = ".tmp-cds-";
+    private static final String WORKLOAD_INPUT = "5\n3 1 4 1 5\nhello world\n";
+    private static final String WORKLOAD_SOURCE = """
+            import java.io.*;
+            import java.util.*;
+            import java.util.stream.*;
+
+            public class Main {
+                public static void main(String[] args) throws IOException {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+                    int n = Integer.parseInt(reader.readLine().trim());
+                    StringTokenizer tokenizer = new StringTokenizer(reader.readLine());
+                    long[] values = new long[n];
+                    for (int i = 0; i < n; i++) {
+                        values[i] = Long.parseLong(tokenizer.nextToken());
+                    }
+                    Arrays.sort(values);
+
+                    Scanner scanner = new Scanner(reader.readLine());
+                    Map<String, Integer> counts = new HashMap<>();
+                    Deque<String> stack = new ArrayDeque<>();
+                    while (scanner.hasNext()) {
+                        String word = scanner.next();
+                        counts.merge(word, 1, Integer::sum);
+                        stack.push(word);
+                    }
+
+                    PriorityQueue<Long> heap = new PriorityQueue<>(Comparator.reverseOrder());
+                    TreeMap<Long, Integer> sorted = new TreeMap<>();
+                    Set<Long> seen = new HashSet<>();
+                    for (long value : values) {
+                        heap.add(value);
+                        sorted.put(value, sorted.getOrDefault(value, 0) + 1);
+                        seen.add(value);
+                    }
+
+                    StringBuilder builder = new StringBuilder();
+                    builder.append(Arrays.stream(values).mapToObj(String::valueOf).collect(Collectors.joining(" ")));
+                    builder.append('\\n').append(String.format("%.2f %d %s", Math.sqrt(heap.peek()), seen.size(), sorted.firstKey()));
+                    PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+                    out.println(builder);
+                    out.println(new ArrayList<>(counts.keySet()).stream().sorted().collect(Collectors.toList()) + " " + stack.peek());
+                    out.flush();
+                }
+            }
+            """;
+
+    private final TestCaseLoader testCaseLoader;
+    private final JudgeHarness judgeHarness;
+    private final ProcessRunner processRunner;
+
+    @Value("${executor.java.cds.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.java.cds.dir:/var/local/lib/hackstack-cds}")
+    private String archiveDir;
+
+    private volatile boolean ready;
+
+    public CdsArchiveManager(TestCaseLoader testCaseLoader, JudgeHarness judgeHarness, ProcessRunner processRunner) {
+        this.testCaseLoader = testCaseLoader;
+        this.judgeHarness = judgeHarness;
+        this.processRunner = processRunner;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        // Dumping takes a few seconds; submissions run without the archive until it is ready
+        Thread generator = new Thread(this::ensureArchive, "cds-archive");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Reuses the existing archive if its fingerprint and a trial run still match, otherwise rebuilds it.
+     *
+     * @return true if a valid archive is in use
+     */
+    public synchronized boolean ensureArchive() {
+        try {
+            Path root = archiveRoot();
+            String fingerprint = fingerprint();
+            Path fingerprintFile = root.resolve(FINGERPRINT_FILE);
+            if (Files.exists(fingerprintFile) && fingerprint.equals(Files.readString(fingerprintFile))
+                    && validate(root.resolve(ExecutorConstants.CDS_ARCHIVE_FILE))) {
+                ready = true;
+                log.info("Using existing CDS archive at {}", root);
+                return true;
+            }
+            log.info("CDS archive at {} is missing or stale, regenerating", root);
+            return regenerate();
+        } catch (Exception e) {
+            log.warn("Could not prepare CDS archive, running without it: {}", e.getMessage());
+            ready = false;
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the archive from the judge workload, replacing the current one only if the new archive validates.
+     *
+     * @return true if a valid archive is in use afterwards
+     */
+    public synchronized boolean regenerate() throws IOException, InterruptedException {
+        ready = false;
+        Path root = archiveRoot();
+        deleteStaleStaging(root);
+        // Staged next to the archive so the final rename never crosses filesystems
+        Path workDir = Files.createTempDirectory(root, STAGING_PREFIX);
+        try {
+            Path classList = workDir.resolve(CLASS_LIST_FILE);
+            Path archive = workDir.resolve(ExecutorConstants.CDS_ARCHIVE_FILE);
+            if (!recordClassList(workDir, classList)) {
+                return false;
+            }
+
+            List<String> dump = javaCommand(baseOptions(true));
+            dump.addAll(List.of("-Xshare:dump", "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + archive));
+            String dumpOutput = runProcess(dump, null, workDir);
+            if (!Files.exists(archive) || !validate(archive)) {
+                log.warn("CDS dump did not produce a usable archive: {}", dumpOutput.trim());
+                return false;
+            }
+
+            Files.move(archive, root.resolve(ExecutorConstants.CDS_ARCHIVE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(root.resolve(FINGERPRINT_FILE), fingerprint());
+            ready = true;
+            log.info("Generated CDS archive at {}", root);
+            return true;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Removes staging directories left behind by a generation that was killed midway.
+     */
+    private void deleteStaleStaging(Path root) throws IOException {
+        try (var entries = Files.list(root)) {
+            for (Path entry : entries.filter(path -> path.getFileName().toString().startsWith(STAGING_PREFIX)).toList()) {
+                deleteRecursively(entry);
+            }
+        }
+    }
+
+    private void deleteRecursively(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * JVM flags for a sandboxed run; includes the archive when one is ready.
+     * The archive holds class metadata only, so it is shared by runs with any heap size.
+     *
+     * @param heapMb maximum heap of the run
+     * @return memory, GC and CDS flags
+     */
+    public List<String> jvmOptions(int heapMb) {
+        if (!isReady()) {
+            return withHeap(baseOptions(false), heapMb);
+        }
+        List<String> options = withHeap(baseOptions(true), heapMb);
+        options.add("-Xshare:auto");
+        options.add("-XX:SharedArchiveFile=" + ExecutorConstants.CDS_SANDBOX_DIR + "/" + ExecutorConstants.CDS_ARCHIVE_FILE);
+        return options;
+    }
+
+    /**
+     * Extra isolate arguments exposing the archive directory read-only inside the box.
+     *
+     * @return isolate --dir arguments, empty when no archive is ready
+     */
+    public List<String> isolateDirectories() {
+        if (!isReady()) {
+            return List.of();
+        }
+        return List.of("--dir=" + ExecutorConstants.CDS_SANDBOX_DIR + "=" + Paths.get(archiveDir).toAbsolutePath().normalize());
+    }
+
+    private boolean isReady() {
+        if (ready && !Files.exists(Paths.get(archiveDir, ExecutorConstants.CDS_ARCHIVE_FILE))) {
+            log.warn("CDS archive disappeared, falling back to plain JVM flags");
+            ready = false;
+        }
+        return ready;
+    }
+
+    private List<String> baseOptions(boolean sharing) {
+        return new ArrayList<>(Arrays.asList(
+                ExecutorConstants.JAVA_MEM_MAX, ExecutorConstants.JAVA_MEM_MIN,
+                ExecutorConstants.JAVA_METASPACE, ExecutorConstants.JAVA_METASPACE_MIN,
+                ExecutorConstants.JAVA_CODE_CACHE,
+                sharing ? ExecutorConstants.JAVA_CDS_CLASS_SPACE : ExecutorConstants.JAVA_DISABLE_COMPRESSED_CLASS,
+                ExecutorConstants.JAVA_GC, ExecutorConstants.JAVA_TIERED_COMPILATION));
+    }
+
+    /**
+     * Replaces the default heap flags; the initial heap never exceeds the maximum.
+     */
+    private List<String> withHeap(List<String> options, int heapMb) {
+        if (heapMb == ExecutorConstants.JAVA_HEAP_MB) {
+            return options;
+        }
+        options.set(options.indexOf(ExecutorConstants.JAVA_MEM_MAX), "-Xmx" + heapMb + "m");
+        options.set(options.indexOf(ExecutorConstants.JAVA_MEM_MIN), "-Xms" + Math.min(heapMb, ExecutorConstants.JAVA_HEAP_MIN_MB) + "m");
+        return options;
+    }
+
+    /**
+     * Runs the workload (through the judge runner when available) and records every class it loads.
+     */
+    private boolean recordClassList(Path workDir, Path classList) throws IOException, InterruptedException {
+        Path source = workDir.resolve(ExecutorConstants.JAVA_MAIN_FILE);
+        Files.writeString(source, WORKLOAD_SOURCE);
+        String compileOutput = runProcess(List.of(testCaseLoader.getJavacPath(), source.toString()), null, workDir);
+        if (!compileOutput.trim().isEmpty()) {
+            log.warn("Failed to compile CDS workload: {}", compileOutput.trim());
+            return false;
+        }
+
+        Path input = workDir.resolve(ExecutorConstants.INPUT_FILE);
+        Files.writeString(input, WORKLOAD_INPUT);
+
+        List<String> command = javaCommand(baseOptions(true));
+        command.add("-XX:DumpLoadedClassList=" + classList);
+        if (judgeHarness.isApplicable(ExecutorConstants.LANG_JAVA, 2, workDir)) {
+            judgeHarness.prepare(workDir, List.of(WORKLOAD_INPUT, WORKLOAD_INPUT), true, List.of());
+            command.addAll(Arrays.asList(judgeHarness.runnerArguments(2, ".", 0, ResourceLimits.DEFAULT, false)));
+        } else {
+            command.addAll(List.of("-cp", ".", "Main"));
+        }
+        runProcess(command, input, workDir);
+        return Files.exists(classList);
+    }
+
+    private boolean validate(Path archive) throws IOException, InterruptedException {
+        List<String> command = javaCommand(baseOptions(true));
+        command.addAll(List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive, "-version"));
+        // The runner kills a JVM that hangs on the archive instead of leaving it behind
+        return processRunner.run(command, null, null).succeeded();
+    }
+
+    private String fingerprint() throws IOException, InterruptedException {
+        List<String> version = javaCommand(List.of("-version"));
+        return testCaseLoader.getJavaPath() + "\n" + runProcess(version, null, null).trim() + "\n" + String.join(" ", baseOptions(true));
+    }
+
+    private Path archiveRoot() throws IOException {
+        return Files.createDirectories(Paths.get(archiveDir).toAbsolutePath().normalize());
+    }
+
+    private List<String> javaCommand(List<String> options) {
+        List<String> command = new ArrayList<>();
+        command.add(testCaseLoader.getJavaPath());
+        command.addAll(options);
+        return command;
+    }
+
+    private String runProcess(List<String> command, Path stdin, Path workDir) throws IOException, InterruptedException {
+        return processRunner.run(command, workDir, stdin).output();
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.CompiledArtifact;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of compiled Java submissions.
+ * Entries are keyed by a hash of the source and the compiler version and hold either the class files
+ * or the compiler diagnostics. The local tier lives on disk with size-bounded LRU eviction;
+ * an optional shared tier in Redis lets several executors reuse each other's builds.
+ */
+@Slf4j
+@Service
+public class CompileCache {
+
+    private static final String CLASSES_DIR = "classes";
+    private static final String DIAGNOSTICS_FILE = "diagnostics.txt";
+    private static final String STAGING_PREFIX = ".tmp-";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${executor.compile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.compile-cache.dir:${java.io.tmpdir}/hackstack-compile-cache}")
+    private String cacheDir;
+
+    @Value("${executor.compile-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${executor.compile-cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${executor.compile-cache.redis.ttl-hours:24}")
+    private long redisTtlHours;
+
+    // Access-ordered: iteration starts at the least recently used entry. Guarded by this, like every change
+    // to an entry's directory, so a reader never sees an entry that is being evicted
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private Path cacheRoot;
+
+    public CompileCache(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+            Files.createDirectories(cacheRoot);
+
+            // Rebuild the LRU order from the last access time recorded on each entry
+            try (Stream<Path> dirs = Files.list(cacheRoot)) {
+                List<Path> sorted = dirs.filter(Files::isDirectory)
+                        .filter(this::isCompleteEntry)
+                        .sorted(Comparator.comparing(this::lastModified))
+                        .collect(Collectors.toList());
+                for (Path entry : sorted) {
+                    long size = directorySize(entry);
+                    entries.put(entry.getFileName().toString(), new Entry(size));
+                    totalBytes += size;
+                }
+            }
+            evictIfNeeded();
+            log.info("Initialized compile cache at {} with {} entries ({} bytes)", cacheRoot, entries.size(), totalBytes);
+        } catch (IOException e) {
+            log.warn("Could not initialize compile cache at {}, disabling it", cacheDir, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Builds the cache key for a submission.
+     *
+     * @param source          the source code
+     * @param compilerVersion the compiler version string
+     * @return hex encoded SHA-256 of the compiler version and source
+     */
+    public String key(String source, String compilerVersion) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(compilerVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Looks up a compiled artifact, first on local disk and then in Redis.
+     *
+     * @param key the cache key
+     * @return the cached artifact, or null on a miss
+     */
+    public CompiledArtifact get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        CompiledArtifact artifact = readLocal(key);
+        if (artifact != null) {
+            log.debug("Compile cache hit (local): {}", key);
+            return artifact;
+        }
+
+        if (redisEnabled) {
+            try {
+                Object value = redisTemplate.opsForValue().get(ExecutorConstants.REDIS_COMPILE_PREFIX + key);
+                if (value instanceof CompiledArtifact shared) {
+                    log.debug("Compile cache hit (redis): {}", key);
+                    writeLocal(key, shared);
+                    return shared;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read compile cache entry {} from Redis: {}", key, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a compiled artifact in the local tier and, if enabled, in Redis.
+     *
+     * @param key      the cache key
+     * @param artifact the artifact to store
+     */
+    public void put(String key, CompiledArtifact artifact) {
+        if (!enabled || artifact.isTransientFailure()) {
+            return;
+        }
+
+        writeLocal(key, artifact);
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForValue().set(ExecutorConstants.REDIS_COMPILE_PREFIX + key, artifact,
+                        Duration.ofHours(redisTtlHours));
+            } catch (Exception e) {
+                log.warn("Failed to write compile cache entry {} to Redis: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Collects the class files javac produced in a box.
+     *
+     * @param boxPath the box directory
+     * @return class files keyed by their path relative to the box
+     */
+    public Map<String, byte[]> collectClassFiles(Path boxPath) throws IOException {
+        Map<String, byte[]> classFiles = new HashMap<>();
+        try (Stream<Path> files = Files.list(boxPath)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(".class")).collect(Collectors.toList())) {
+                classFiles.put(file.getFileName().toString(), Files.readAllBytes(file));
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Strips the box directory from forked javac output, so cached diagnostics read the same for every submission
+     * and match the in-process compiler's format.
+     *
+     * @param output  javac's output
+     * @param boxPath the box the source was compiled in
+     * @return the output with file names relative to the box
+     */
+    public String relativizeDiagnostics(String output, Path boxPath) {
+        return output.replace(boxPath.toAbsolutePath().normalize() + boxPath.getFileSystem().getSeparator(), "");
+    }
+
+    /**
+     * Writes the class files of a cached artifact into a box.
+     *
+     * @param artifact the cached artifact
+     * @param boxPath  the box directory
+     */
+    public void install(CompiledArtifact artifact, Path boxPath) throws IOException {
+        for (Map.Entry<String, byte[]> classFile : artifact.getClassFiles().entrySet()) {
+            Path target = boxPath.resolve(classFile.getKey());
+            Files.createDirectories(target.getParent());
+            Files.write(target, classFile.getValue());
+        }
+    }
+
+    private synchronized CompiledArtifact readLocal(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        Path entryDir = cacheRoot.resolve(key);
+        try {
+            Files.setLastModifiedTime(entryDir, FileTime.fromMillis(System.currentTimeMillis()));
+            Path diagnosticsFile = entryDir.resolve(DIAGNOSTICS_FILE);
+            if (Files.exists(diagnosticsFile)) {
+                return new CompiledArtifact(Map.of(), Files.readString(diagnosticsFile));
+            }
+
+            Map<String, byte[]> classFiles = new HashMap<>();
+            Path classesDir = entryDir.resolve(CLASSES_DIR);
+            try (Stream<Path> files = Files.walk(classesDir)) {
+                for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    classFiles.put(classesDir.relativize(file).toString(), Files.readAllBytes(file));
+                }
+            }
+            return new CompiledArtifact(classFiles, null);
+        } catch (IOException e) {
+            // Entry is corrupt, e.g. damaged on disk; treat as a miss
+            log.debug("Failed to read compile cache entry {}: {}", key, e.getMessage());
+            remove(key, entry);
+            return null;
+        }
+    }
+
+    private void writeLocal(String key, CompiledArtifact artifact) {
+        Path staging = cacheRoot.resolve(STAGING_PREFIX + UUID.randomUUID());
+        try {
+            if (artifact.isSuccessful()) {
+                Path classesDir = Files.createDirectories(staging.resolve(CLASSES_DIR));
+                for (Map.Entry<String, byte[]> classFile : artifact.getClassFiles().entrySet()) {
+                    Path target = classesDir.resolve(classFile.getKey());
+                    Files.createDirectories(target.getParent());
+                    Files.write(target, classFile.getValue());
+                }
+            } else {
+                Files.createDirectories(staging);
+                Files.writeString(staging.resolve(DIAGNOSTICS_FILE), artifact.getDiagnostics());
+            }
+
+            long size = directorySize(staging);
+            synchronized (this) {
+                if (entries.containsKey(key)) {
+                    deleteDirectory(staging);
+                    return;
+                }
+                Files.move(staging, cacheRoot.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+                entries.put(key, new Entry(size));
+                totalBytes += size;
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store compile cache entry {}: {}", key, e.getMessage());
+            deleteDirectory(staging);
+        }
+    }
+
+    /**
+     * Removes an entry only if it is still the given instance, never one stored again under the same key since.
+     */
+    private synchronized void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            totalBytes -= entry.size;
+            deleteDirectory(cacheRoot.resolve(key));
+        }
+    }
+
+    private synchronized void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            deleteDirectory(cacheRoot.resolve(eldest.getKey()));
+            log.debug("Evicted compile cache entry {}", eldest.getKey());
+        }
+    }
+
+    private boolean isCompleteEntry(Path entry) {
+        if (entry.getFileName().toString().startsWith(STAGING_PREFIX)) {
+            // Left behind by a crash while storing an entry
+            deleteDirectory(entry);
+            return false;
+        }
+        return true;
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private long directorySize(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private void deleteDirectory(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * A local entry; compared by identity so a removal cannot hit a newer entry under the same key.
+     */
+    private static final class Entry {
+        private final long size;
+
+        Entry(long size) {
+            this.size = size;
+        }
+    }
+}
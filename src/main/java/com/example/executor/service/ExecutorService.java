@@ -1,253 +1,453 @@
 package com.example.executor.service;
 
 import com.example.executor.constants.ExecutorConstants;
-import com.example.executor.enums.RuntimeErrorPattern;
+import com.example.executor.enums.ExecutionMode;
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.CompiledArtifact;
 import com.example.executor.model.ExecutorInput;
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.model.TestRun;
 import com.example.executor.utility.BoxIdPool;
+import com.example.executor.utility.ConcurrencyController;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.ProcessRunner;
 import com.example.executor.utility.Response;
 import com.example.executor.utility.ResponseManager;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class ExecutorService {
 
     private final ResponseManager responseManager;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TestCaseCache testCaseCache;
     private final TestCaseLoader testCaseLoader;
-    private final ObjectMapper objectMapper;
     private final BoxIdPool boxIdPool;
-
-    public ExecutorService(ResponseManager responseManager, RedisTemplate<String, Object> redisTemplate,
-                           KafkaTemplate<String, String> kafkaTemplate, TestCaseLoader testCaseLoader,
-                           ObjectMapper objectMapper, BoxIdPool boxIdPool) {
+    private final CompileCache compileCache;
+    private final JavaCompilerService javaCompilerService;
+    private final SandboxRunner sandboxRunner;
+    private final ExecutionMetrics executionMetrics;
+    private final ResultCache resultCache;
+    private final ProcessRunner processRunner;
+    private final ConcurrencyController concurrencyController;
+    private final Executor shardExecutor;
+
+    @Value("${executor.parallel.enabled:true}")
+    private boolean parallelEnabled;
+
+    @Value("${executor.parallel.max-shards:4}")
+    private int maxShards;
+
+    @Value("${executor.parallel.min-tests-per-shard:4}")
+    private int minTestsPerShard;
+
+    public ExecutorService(ResponseManager responseManager, TestCaseCache testCaseCache,
+                           TestCaseLoader testCaseLoader, BoxIdPool boxIdPool, CompileCache compileCache,
+                           JavaCompilerService javaCompilerService, SandboxRunner sandboxRunner,
+                           ExecutionMetrics executionMetrics, ResultCache resultCache,
+                           ProcessRunner processRunner, ConcurrencyController concurrencyController) {
         this.responseManager = responseManager;
-        this.redisTemplate = redisTemplate;
-        this.kafkaTemplate = kafkaTemplate;
+        this.testCaseCache = testCaseCache;
         this.testCaseLoader = testCaseLoader;
-        this.objectMapper = objectMapper;
         this.boxIdPool = boxIdPool;
+        this.compileCache = compileCache;
+        this.javaCompilerService = javaCompilerService;
+        this.sandboxRunner = sandboxRunner;
+        this.executionMetrics = executionMetrics;
+        this.resultCache = resultCache;
+        this.processRunner = processRunner;
+        this.concurrencyController = concurrencyController;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.shardExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a submission in an already acquired box.
+     * The result carries no submission-specific fields, so it can be shared with identical submissions.
+     *
+     * @param executorInput the submission
+     * @param boxId         the box to run it in; the caller releases it
+     * @return the result, an internal error response if the execution failed
+     */
+    public Response execute(ExecutorInput executorInput, String boxId) {
+        return execute(executorInput, boxId, null);
     }
 
-    @KafkaListener(topics = ExecutorConstants.KAFKA_TOPIC_EXECUTOR, groupId = ExecutorConstants.KAFKA_CONSUMER_GROUP)
-    public void executeCode(ExecutorInput executorInput) throws IOException, InterruptedException {
-        String boxId = null;
+    /**
+     * Runs a submission in an already acquired box with test data the caller already fetched for its problem.
+     *
+     * @param executorInput the submission
+     * @param boxId         the box to run it in; the caller releases it
+     * @param testData      the problem's test data, or null to fetch it
+     * @return the result, an internal error response if the execution failed
+     */
+    public Response execute(ExecutorInput executorInput, String boxId, ProblemTestData testData) {
+        log.info("Received execution request for problem: {}, language: {}, submissionId: {}, using BOX_ID: {}",
+                executorInput.getProblemName(), executorInput.getLanguage(), executorInput.getSubmissionId(), boxId);
+
         try {
-            // Acquire a box ID from the pool (thread-safe)
-            boxId = boxIdPool.acquire();
-            log.info("Received execution request for problem: {}, language: {}, submissionId: {}, using BOX_ID: {}",
-                    executorInput.getProblemName(), executorInput.getLanguage(), executorInput.getSubmissionId(), boxId);
-
-            Response response;
-            try {
-                response = runExecution(executorInput, boxId);
-            } catch (Exception e) {
-                log.error("Execution failed for problem: {}", executorInput.getProblemName(), e);
-                response = responseManager.error("Execution failed: " + e.getMessage());
-            }
-            response.setSubmissionId(executorInput.getSubmissionId());
-            response.setUserId(executorInput.getUserId());
-            response.setProblemId(executorInput.getProblemId());
-
-            try {
-                String jsonResponse = objectMapper.writeValueAsString(response);
-                log.info("Sending JSON to Kafka: {}", jsonResponse);
-                kafkaTemplate.send(ExecutorConstants.KAFKA_TOPIC_RESULTS, jsonResponse);
-                log.info("Sent execution result for submission: {}", executorInput.getSubmissionId());
-            } catch (Exception e) {
-                log.error("Failed to serialize response to JSON for submission: {}", executorInput.getSubmissionId(), e);
-            }
-        } finally {
-            // Always release the box ID back to the pool
-            if (boxId != null) {
-                boxIdPool.release(boxId);
-                log.info("Released box ID {} back to pool", boxId);
-            }
+            return runExecution(executorInput, boxId, testData);
+        } catch (Exception e) {
+            log.error("Execution failed for problem: {}", executorInput.getProblemName(), e);
+            return errorResponse(Verdict.IE, "Execution failed: " + e.getMessage(), executorInput);
         }
     }
 
-    private Response runExecution(ExecutorInput executorInput, String boxId) throws IOException, InterruptedException {
+    /**
+     * Internal error result for a submission that could not be run, counted like any other verdict.
+     *
+     * @param executorInput the submission
+     * @param message       what went wrong
+     * @return the internal error response
+     */
+    public Response internalError(ExecutorInput executorInput, String message) {
+        return errorResponse(Verdict.IE, message, executorInput);
+    }
+
+    /**
+     * Key under which the result of a submission is shared with identical submissions.
+     *
+     * @param executorInput the submission
+     * @return the result key, or null if the problem's test data is unavailable
+     */
+    public String resultKey(ExecutorInput executorInput) {
+        return resultKey(executorInput, testData(executorInput));
+    }
+
+    /**
+     * Key under which the result of a submission is shared, for test data the caller already fetched.
+     *
+     * @param executorInput the submission
+     * @param testData      the problem's test data, may be null
+     * @return the result key, or null if the test data is unavailable
+     */
+    public String resultKey(ExecutorInput executorInput, ProblemTestData testData) {
+        if (executorInput.getLanguage() == null || executorInput.getCode() == null || testData == null
+                || testData.getVersion() == null) {
+            return null;
+        }
+        return resultCache.key(executorInput, testData.getVersion());
+    }
+
+    /**
+     * Test data of a submission's problem, from the node-local cache when possible.
+     *
+     * @param executorInput the submission
+     * @return the test data, or null if the problem is unknown or Redis is unavailable
+     */
+    public ProblemTestData testData(ExecutorInput executorInput) {
+        if (executorInput.getProblemName() == null) {
+            return null;
+        }
         try {
-            String problemKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + executorInput.getProblemName();
-            List<String> inputs = (List<String>) redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_INPUTS_SUFFIX);
-            List<String> outputs = (List<String>) redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_OUTPUTS_SUFFIX);
+            return testCaseCache.get(executorInput.getProblemName());
+        } catch (Exception e) {
+            log.warn("Could not fetch test data for submission {}: {}", executorInput.getSubmissionId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Number of tests a submission runs: sample runs only see the sample tests, and problems without any use
+     * their first test as the sample.
+     *
+     * @param executorInput the submission
+     * @param testData      the problem's test data
+     * @return the number of leading tests the submission runs
+     */
+    public int testCount(ExecutorInput executorInput, ProblemTestData testData) {
+        return executorInput.getMode() == ExecutionMode.SAMPLE
+                ? Math.min(testData.getTestCount(), Math.max(1, testData.getSampleCount()))
+                : testData.getTestCount();
+    }
+
+    /**
+     * Sandbox limits a submission runs with, which is also the memory its boxes reserve.
+     *
+     * @param executorInput the submission
+     * @return its problem's limits for the language, the defaults if the test data is unavailable
+     */
+    public ResourceLimits limits(ExecutorInput executorInput) {
+        ProblemTestData testData = testData(executorInput);
+        return testData == null ? ResourceLimits.DEFAULT : testData.limitsFor(executorInput.getLanguage());
+    }
 
-            if (inputs == null || outputs == null) {
-                return responseManager.error("Test cases not found for " + executorInput.getProblemName());
+    private Response runExecution(ExecutorInput executorInput, String boxId, ProblemTestData fetchedTestData) throws IOException, InterruptedException {
+        String language = executorInput.getLanguage();
+        String problemName = executorInput.getProblemName();
+        List<String> shardBoxIds = new ArrayList<>();
+        long shardMemoryKb = 0;
+        try {
+            Timer.Sample sample = executionMetrics.startPhase();
+            ProblemTestData testData = fetchedTestData != null ? fetchedTestData : testCaseCache.get(problemName);
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_FETCH, language, problemName);
+            if (testData == null) {
+                return errorResponse(Verdict.IE, "Test cases not found for " + problemName, executorInput);
             }
 
-            String boxPath = ExecutorConstants.BOX_BASE_PATH + boxId + "/box";
-            runCommand("isolate", "--box-id=" + boxId, "--init");
-            Files.createDirectories(Paths.get(boxPath));
+            // Boxes come out of the pool already initialized; the pool cleans them up on release
+            Path boxPath = sandboxRunner.boxPath(boxId);
+            Files.createDirectories(boxPath);
 
             String fileName = generateFileName(executorInput.getLanguage());
-            Path codePath = Paths.get(boxPath, fileName);
+            Path codePath = boxPath.resolve(fileName);
             Files.writeString(codePath, executorInput.getCode());
 
             if (executorInput.getLanguage().equalsIgnoreCase(ExecutorConstants.LANG_JAVA)) {
-                String compileOutput = runCommand(testCaseLoader.getJavacPath(), boxPath + "/" + ExecutorConstants.JAVA_MAIN_FILE);
+                sample = executionMetrics.startPhase();
+                String compileOutput = compileJava(executorInput.getCode(), boxPath);
+                executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_COMPILE, language, problemName);
                 if (!compileOutput.trim().isEmpty()) {
-                    return responseManager.error("Compilation error:\n" + compileOutput);
+                    return errorResponse(Verdict.CE, "Compilation error:\n" + compileOutput, executorInput);
                 }
             }
 
+            int testCount = testCount(executorInput, testData);
+            shardMemoryKb = testData.limitsFor(language).memoryKb();
+            acquireShardBoxes(boxPath, testCount, shardMemoryKb, shardBoxIds);
+            List<TestRun> runs = runShards(executorInput, testData, testCount, boxId, shardBoxIds);
+
             List<String> results = new ArrayList<>();
             List<Double> runtimes = new ArrayList<>();
             List<Double> memories = new ArrayList<>();
-            Path inputFile = Paths.get(boxPath, ExecutorConstants.INPUT_FILE);
-            Path metaFile = Paths.get(boxPath, "meta.txt");
-
-            for (int i = 0; i < inputs.size(); i++) {
-                String input = inputs.get(i);
-                String expected = outputs.get(i).trim();
-
-                Files.writeString(inputFile, input);
-
-                String actualOutput;
-                if (executorInput.getLanguage().equalsIgnoreCase(ExecutorConstants.LANG_JAVA)) {
-                    actualOutput = runInIsolateWithInput(boxId, input, metaFile.toString(), testCaseLoader.getJavaPath(),
-                            ExecutorConstants.JAVA_MEM_MAX, ExecutorConstants.JAVA_MEM_MIN,
-                            ExecutorConstants.JAVA_METASPACE, ExecutorConstants.JAVA_METASPACE_MIN,
-                            ExecutorConstants.JAVA_CODE_CACHE, ExecutorConstants.JAVA_DISABLE_COMPRESSED_CLASS,
-                            ExecutorConstants.JAVA_GC, ExecutorConstants.JAVA_TIERED_COMPILATION, "Main");
-                } else {
-                    actualOutput = runInIsolateWithInput(boxId, input, metaFile.toString(), testCaseLoader.getNodePath(), ExecutorConstants.JS_MAIN_FILE);
+            List<Verdict> verdicts = new ArrayList<>();
+            Verdict verdict = Verdict.AC;
+            RuntimeErrorType errorType = null;
+
+            for (TestRun run : runs) {
+                int i = run.getIndex();
+                String expected = sandboxRunner.expectedSnippet(testData.getOutput(i));
+                String actualOutput = run.getOutput();
+                Verdict testVerdict = run.getStatus();
+                runtimes.add(run.getRuntime());
+                memories.add(run.getMemory());
+                verdicts.add(testVerdict);
+                if (verdict == Verdict.AC) {
+                    verdict = testVerdict;
                 }
 
-                actualOutput = actualOutput.trim();
-
-                // Parse meta file for runtime and memory
-                double runtime = 0.0;
-                double memory = 0.0;
-                try {
-                    List<String> metaLines = Files.readAllLines(metaFile);
-                    for (String line : metaLines) {
-                        if (line.startsWith("time:")) {
-                            runtime = Double.parseDouble(line.substring(5)) * 1000; // Convert to milliseconds
-                        } else if (line.startsWith("cg-mem:")) {
-                            memory = Double.parseDouble(line.substring(7)) / 1024.0; // Convert KB to MB
-                        } else if (memory == 0.0 && line.startsWith("max-rss:")) {
-                            memory = Double.parseDouble(line.substring(8)) / 1024.0; // Convert KB to MB (fallback)
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to parse meta file: {}", e.getMessage());
+                if (testVerdict == Verdict.IE) {
+                    // The tests judged so far stand, but the submission as a whole could not be judged
+                    verdict = Verdict.IE;
+                    results.add(String.format("Test case %d could not be judged: sandbox error", i + 1));
+                    log.error("Stopping execution due to a sandbox error at test case {}", i + 1);
+                    break;
                 }
-                runtimes.add(runtime);
-                memories.add(memory);
 
-                if (RuntimeErrorPattern.isRuntimeError(actualOutput)) {
+                if (testVerdict == Verdict.TLE) {
                     results.add(String.format("Test case %d failed with runtime error\nExpected: [%s]\nGot: [%s]",
-                            i + 1, expected, actualOutput));
-                    log.warn("Stopping execution due to runtime error at test case {}", i + 1);
+                            i + 1, expected, "Time limit exceeded"));
+                    log.warn("Stopping execution due to time limit at test case {}", i + 1);
                     break;
                 }
 
-                String normalizedActual = normalizeOutput(actualOutput);
-                String normalizedExpected = normalizeOutput(expected);
+                if (testVerdict == Verdict.RE || testVerdict == Verdict.MLE) {
+                    String error = run.getError() == null || run.getError().isEmpty() ? actualOutput : run.getError();
+                    results.add(String.format("Test case %d failed with %s\nExpected: [%s]\nGot: [%s]",
+                            i + 1, testVerdict == Verdict.MLE ? "memory limit exceeded" : "runtime error", expected, error));
+                    log.warn("Stopping execution due to runtime error ({}) at test case {}", run.getErrorType(), i + 1);
+                    errorType = run.getErrorType();
+                    break;
+                }
 
-                if (normalizedActual.equals(normalizedExpected)) {
+                if (testVerdict == Verdict.AC) {
                     results.add("Test case " + (i + 1) + " passed");
+                } else if (testVerdict == Verdict.OLE) {
+                    results.add(String.format("Test case %d failed with output limit exceeded\nExpected: [%s]\nGot: [%s]",
+                            i + 1, expected, actualOutput));
                 } else {
                     results.add(String.format("Test case %d failed\nExpected: [%s]\nGot: [%s]",
                             i + 1, expected, actualOutput));
                 }
+                // Other shards may have finished later tests before they saw the failure
+                if (testVerdict != Verdict.AC && executorInput.getMode() == ExecutionMode.FAIL_FAST) {
+                    break;
+                }
             }
+            executionMetrics.countVerdict(verdict, language, problemName);
 
-            runCommand("isolate", "--box-id=" + boxId, "--cleanup");
             Response response = responseManager.success(results);
+            response.setVerdict(verdict);
+            response.setVerdicts(verdicts.toArray(new Verdict[0]));
             response.setRuntime(runtimes.toArray(new Double[0]));
             response.setMemory(memories.toArray(new Double[0]));
+            response.setErrorType(errorType);
             return response;
         } catch (Exception e) {
-            runCommand("isolate", "--box-id=" + boxId, "--cleanup");
-            return responseManager.error("Execution failed: " + e.getMessage());
+            return errorResponse(Verdict.IE, "Execution failed: " + e.getMessage(), executorInput);
+        } finally {
+            for (String shardBoxId : shardBoxIds) {
+                boxIdPool.release(shardBoxId);
+                concurrencyController.release(shardMemoryKb);
+            }
         }
     }
 
-    private String runInIsolateWithInput(String boxId, String input, String metaFile, String... innerCommand) throws IOException, InterruptedException {
-        List<String> command = new ArrayList<>();
-        command.add("isolate");
-        command.add("--box-id=" + boxId);
-        command.add("--meta=" + metaFile);
-        command.add("--time=" + ExecutorConstants.TIME_LIMIT);
-        command.add("--wall-time=" + ExecutorConstants.WALL_TIME_LIMIT);
-        command.add("--mem=" + ExecutorConstants.MEMORY_LIMIT);
-        command.add("--processes=" + ExecutorConstants.MAX_PROCESSES);
-        command.add("--stdin=" + ExecutorConstants.INPUT_FILE);
-
-        command.add("--dir=/usr/lib/jvm=/usr/lib/jvm:maybe");
-        command.add("--dir=/usr/share=/usr/share:maybe");
-        command.add("--dir=/usr/bin=/usr/bin:maybe");
-        command.add("--dir=/lib=/lib:maybe");
-        command.add("--dir=/lib64=/lib64:maybe");
-        command.add("--dir=/etc=/etc:maybe");
-        command.add("--dir=/tmp=/tmp:rw");
-        command.add("--dir=/opt=/opt:maybe");
-
-        command.add("--run");
-        command.add("--");
-        command.addAll(Arrays.asList(innerCommand));
-
-        return executeProcess(command);
+    private Response errorResponse(Verdict verdict, String message, ExecutorInput executorInput) {
+        executionMetrics.countVerdict(verdict, executorInput.getLanguage(), executorInput.getProblemName());
+        Response response = responseManager.error(message);
+        response.setVerdict(verdict);
+        return response;
     }
 
-    private String executeProcess(List<String> command) throws IOException, InterruptedException {
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
-
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("OK (") || line.startsWith("Time limit exceeded") ||
-                        line.startsWith("Caught fatal signal") || line.startsWith("Exited with error status")) {
-                    continue;
-                }
-                output.append(line).append("\n");
+    /**
+     * Decides how many extra boxes a submission's tests are spread over, bounded by the configured maximum,
+     * the CPU cores, the free boxes in the pool, the memory budget and a minimum number of tests per shard.
+     * Each extra box receives a copy of the compiled submission. Boxes are added to {@code shardBoxIds} as they are
+     * acquired, so the caller releases them even if copying fails.
+     *
+     * @param shardBoxIds receives the IDs of the extra boxes; stays empty when the tests run in the primary box only
+     */
+    private void acquireShardBoxes(Path primaryBoxPath, int testCount, long memoryKb, List<String> shardBoxIds) throws IOException {
+        if (!parallelEnabled) {
+            return;
+        }
+
+        int byTests = (testCount + minTestsPerShard - 1) / minTestsPerShard;
+        int shards = Math.min(Math.min(maxShards, Runtime.getRuntime().availableProcessors()), byTests);
+        for (int i = 1; i < shards; i++) {
+            if (!concurrencyController.tryAcquire(memoryKb)) {
+                break;
             }
+            String shardBoxId = boxIdPool.tryAcquire();
+            if (shardBoxId == null) {
+                concurrencyController.release(memoryKb);
+                break;
+            }
+            shardBoxIds.add(shardBoxId);
+            copyBox(primaryBoxPath, sandboxRunner.boxPath(shardBoxId));
+        }
+        if (!shardBoxIds.isEmpty()) {
+            log.info("Sharding {} test cases across {} boxes", testCount, shardBoxIds.size() + 1);
+        }
+    }
+
+    /**
+     * Runs contiguous slices of the tests in the primary box and the shard boxes concurrently,
+     * then merges the runs back into test order. A test that ends the submission in one shard stops the shards
+     * still working on later tests, like the sequential loop stops at it.
+     */
+    private List<TestRun> runShards(ExecutorInput executorInput, ProblemTestData testData, int testCount, String boxId,
+                                    List<String> shardBoxIds) throws IOException, InterruptedException {
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        if (shardBoxIds.isEmpty()) {
+            return sandboxRunner.runTests(boxId, executorInput, testData, 0, testCount, firstFailure);
         }
 
-        int exitCode = process.waitFor();
-        if (exitCode != 0 && output.isEmpty()) {
-            output.append("Process exited with code: ").append(exitCode);
+        List<String> boxIds = new ArrayList<>();
+        boxIds.add(boxId);
+        boxIds.addAll(shardBoxIds);
+
+        List<CompletableFuture<List<TestRun>>> shards = new ArrayList<>();
+        for (int shard = 0; shard < boxIds.size(); shard++) {
+            String shardBoxId = boxIds.get(shard);
+            int from = testCount * shard / boxIds.size();
+            int to = testCount * (shard + 1) / boxIds.size();
+            shards.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return sandboxRunner.runTests(shardBoxId, executorInput, testData, from, to, firstFailure);
+                } catch (IOException | InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            }, shardExecutor));
         }
 
-        return output.toString();
+        List<TestRun> runs = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<TestRun>> shard : shards) {
+                runs.addAll(shard.join());
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Shard execution failed: " + cause.getMessage(), cause);
+        }
+        runs.sort(Comparator.comparingInt(TestRun::getIndex));
+        return runs;
     }
 
-    public String runCommand(String... command) throws IOException, InterruptedException {
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
+    private void copyBox(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Path destination = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
 
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+    /**
+     * Compiles Main.java into the box, reusing a cached build of the same source when available.
+     * Cache misses go to the warm in-process compiler, or to a forked javac if it is unavailable or fails.
+     *
+     * @return the compiler output, empty on success
+     */
+    private String compileJava(String code, Path boxPath) throws IOException, InterruptedException {
+        String compilerVersion = javaCompilerService.isAvailable() ? javaCompilerService.getVersion() : testCaseLoader.getJavacVersion();
+        String cacheKey = compileCache.key(code, compilerVersion);
+        CompiledArtifact artifact = compileCache.get(cacheKey);
+
+        if (artifact == null && javaCompilerService.isAvailable()) {
+            artifact = javaCompilerService.compile(code);
+            if (artifact.isTransientFailure()) {
+                // The in-process compiler is stuck or broken, which says nothing about the source
+                log.warn("Falling back to forked javac: {}", artifact.getDiagnostics());
+                artifact = null;
+            } else {
+                compileCache.put(cacheKey, artifact);
+            }
+        }
+        if (artifact == null) {
+            ProcessRunner.Result javac = processRunner.run(testCaseLoader.getJavacPath(), boxPath.resolve(ExecutorConstants.JAVA_MAIN_FILE).toString());
+            String compileOutput = compileCache.relativizeDiagnostics(javac.output(), boxPath);
+            if (javac.timedOut()) {
+                // Says nothing about the source, so it must not be cached
+                return compileOutput.trim().isEmpty() ? "Compilation timed out" : compileOutput;
+            }
+            // The forked javac can be another release than the in-process compiler, so its builds get their own key.
+            // Its failures are not cached: the fallback runs when something is already wrong with the compiler
+            if (compileOutput.trim().isEmpty()) {
+                compileCache.put(compileCache.key(code, testCaseLoader.getJavacVersion()),
+                        new CompiledArtifact(compileCache.collectClassFiles(boxPath), null));
             }
+            return compileOutput;
         }
 
-        process.waitFor();
-        return output.toString();
+        if (!artifact.isSuccessful()) {
+            return artifact.getDiagnostics();
+        }
+        compileCache.install(artifact, boxPath);
+        return "";
     }
 
     private String generateFileName(String language) {
@@ -258,11 +458,4 @@ public class ExecutorService {
         }
         throw new IllegalArgumentException("Unsupported language: " + language);
     }
-
-    private String normalizeOutput(String output) {
-        if (output == null) {
-            return "";
-        }
-        return output.replaceAll("\\s+", "");
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,348 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.CompiledArtifact;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles Java submissions with a warm, in-process {@link JavaCompiler} instead of forking javac.
+ * Sources and class files never touch the disk: a bounded pool of compiler threads, each holding its own
+ * warm file manager, compiles into memory with per-compile timeouts and output-size caps.
+ * javac ignores interrupts, so a compilation that times out keeps its thread; the pool grows by one thread
+ * per stuck compilation (up to {@link #MAX_STUCK_THREADS}) and shrinks back when it finally returns.
+ * Callers never wait longer than the timeout; they get a transient failure and fall back to a forked javac.
+ */
+@Slf4j
+@Service
+public class JavaCompilerService {
+
+    private static final List<String> BASE_OPTIONS = List.of("-proc:none", "-nowarn", "-Xlint:none", "-encoding", "UTF-8");
+    private static final Pattern FEATURE_VERSION = Pattern.compile("(\\d+)");
+    private static final int MAX_STUCK_THREADS = 4;
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int ABANDONED = 3;
+    private static final String WARM_UP_SOURCE = "public class Main { public static void main(String[] args) { System.out.println(args.length); } }";
+
+    @Value("${executor.compiler.in-process.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.compiler.pool-size:2}")
+    private int poolSize;
+
+    @Value("${executor.compiler.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${executor.compiler.max-class-bytes:8388608}")
+    private long maxClassBytes;
+
+    @Value("${executor.compiler.max-diagnostics-chars:65536}")
+    private int maxDiagnosticsChars;
+
+    private final TestCaseLoader testCaseLoader;
+
+    private JavaCompiler compiler;
+    private List<String> compilerOptions = BASE_OPTIONS;
+    private String version;
+    private ThreadPoolExecutor compilerPool;
+    private int stuckThreads;
+    private ThreadLocal<StandardJavaFileManager> fileManagers;
+
+    public JavaCompilerService(TestCaseLoader testCaseLoader) {
+        this.testCaseLoader = testCaseLoader;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        compiler = enabled ? ToolProvider.getSystemJavaCompiler() : null;
+        if (compiler == null) {
+            log.warn("In-process Java compiler not available, falling back to forked javac");
+            enabled = false;
+            return;
+        }
+
+        // Target the sandbox JVM, which may be older than the JVM running the executor
+        Matcher feature = FEATURE_VERSION.matcher(testCaseLoader.getJavacVersion());
+        if (feature.find() && Integer.parseInt(feature.group(1)) < Runtime.version().feature()) {
+            compilerOptions = new ArrayList<>(BASE_OPTIONS);
+            compilerOptions.addAll(List.of("--release", feature.group(1)));
+        }
+        version = "in-process " + Runtime.version() + " " + compilerOptions;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        compilerPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "javac-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        fileManagers = ThreadLocal.withInitial(() -> compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8));
+
+        // Warm up every compiler thread in the background so the first submissions don't pay for it
+        for (int i = 0; i < poolSize; i++) {
+            compilerPool.submit(() -> compileInMemory(WARM_UP_SOURCE));
+        }
+        log.info("Initialized in-process Java compiler with {} threads", poolSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (compilerPool != null) {
+            compilerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if submissions can be compiled in-process
+     */
+    public boolean isAvailable() {
+        return enabled;
+    }
+
+    /**
+     * @return the compiler version and options, used as part of the compile cache key
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Compiles a Main.java source in memory. The timeout covers the whole wait, including the time the source
+     * spends queued behind other compilations, so a pool full of stuck compilations cannot block callers.
+     *
+     * @param source the source code
+     * @return the class files, the diagnostics in javac's command-line format, or a
+     * {@link CompiledArtifact#transientFailure transient failure} if the compiler timed out or crashed
+     */
+    public CompiledArtifact compile(String source) throws InterruptedException {
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        Future<CompiledArtifact> result = compilerPool.submit(() -> {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return CompiledArtifact.transientFailure("Compilation abandoned before it started");
+            }
+            try {
+                return compileInMemory(source);
+            } finally {
+                if (!state.compareAndSet(RUNNING, DONE)) {
+                    releaseStuckThread();
+                }
+            }
+        });
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (state.compareAndSet(QUEUED, ABANDONED)) {
+                result.cancel(false);
+                compilerPool.purge();
+                log.warn("No compiler thread became free within {} ms", timeoutMs);
+                return CompiledArtifact.transientFailure("No compiler thread became free within " + timeoutMs + " ms");
+            }
+            if (!state.compareAndSet(RUNNING, ABANDONED)) {
+                return getFinished(result);
+            }
+            result.cancel(true);
+            replaceStuckThread();
+            log.warn("Compilation timed out after {} ms", timeoutMs);
+            return CompiledArtifact.transientFailure("Compilation timed out after " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            log.error("In-process compilation failed", e.getCause());
+            return CompiledArtifact.transientFailure("Compiler failure: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        }
+    }
+
+    private CompiledArtifact getFinished(Future<CompiledArtifact> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            log.error("In-process compilation failed", e.getCause());
+            return CompiledArtifact.transientFailure("Compiler failure: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Adds a thread to stand in for one stuck in an abandoned compilation, so the pool keeps its full size.
+     */
+    private synchronized void replaceStuckThread() {
+        stuckThreads++;
+        if (stuckThreads > MAX_STUCK_THREADS) {
+            log.warn("{} compiler threads are stuck, running with fewer threads", stuckThreads);
+            return;
+        }
+        // Raise the maximum first, it may never be below the core size
+        compilerPool.setMaximumPoolSize(poolSize + stuckThreads);
+        compilerPool.setCorePoolSize(poolSize + stuckThreads);
+    }
+
+    /**
+     * Shrinks the pool back once an abandoned compilation returns; the surplus thread exits when idle.
+     */
+    private synchronized void releaseStuckThread() {
+        stuckThreads--;
+        int size = poolSize + Math.min(stuckThreads, MAX_STUCK_THREADS);
+        compilerPool.setCorePoolSize(size);
+        compilerPool.setMaximumPoolSize(size);
+    }
+
+    private CompiledArtifact compileInMemory(String source) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        InMemoryFileManager fileManager = new InMemoryFileManager(fileManagers.get(), maxClassBytes);
+        SourceFile sourceFile = new SourceFile(source);
+
+        boolean success = compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, List.of(sourceFile)).call();
+
+        if (fileManager.isOverLimit()) {
+            return new CompiledArtifact(Map.of(), "Compiled classes exceed the size limit of " + maxClassBytes + " bytes");
+        }
+        if (!success) {
+            return new CompiledArtifact(Map.of(), formatDiagnostics(diagnostics.getDiagnostics(), source));
+        }
+        return new CompiledArtifact(fileManager.getClassFiles(), null);
+    }
+
+    /**
+     * Renders error diagnostics the way command-line javac prints them: location, message, source line and caret.
+     */
+    private String formatDiagnostics(List<Diagnostic<? extends JavaFileObject>> diagnostics, String source) {
+        String[] lines = source.split("\n", -1);
+        StringBuilder output = new StringBuilder();
+        int errors = 0;
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            errors++;
+            output.append(ExecutorConstants.JAVA_MAIN_FILE).append(':').append(diagnostic.getLineNumber())
+                    .append(": error: ").append(diagnostic.getMessage(Locale.ROOT)).append('\n');
+
+            long lineNumber = diagnostic.getLineNumber();
+            if (lineNumber > 0 && lineNumber <= lines.length) {
+                String line = lines[(int) lineNumber - 1].replace("\r", "");
+                output.append(line).append('\n');
+                long column = diagnostic.getColumnNumber();
+                if (column > 0) {
+                    output.append(" ".repeat((int) Math.min(column - 1, line.length()))).append("^\n");
+                }
+            }
+
+            if (output.length() > maxDiagnosticsChars) {
+                output.setLength(maxDiagnosticsChars);
+                output.append("\n... (truncated)\n");
+                return output.toString();
+            }
+        }
+
+        output.append(errors).append(errors == 1 ? " error" : " errors").append('\n');
+        return output.toString();
+    }
+
+    /**
+     * The submission source, always presented to the compiler as Main.java.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String source) {
+            super(URI.create("string:///" + ExecutorConstants.JAVA_MAIN_FILE), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * A class file written to memory.
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Keeps compiler output in memory and enforces the total class size cap.
+     */
+    private static final class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, ClassFile> classFiles = new LinkedHashMap<>();
+        private final long maxClassBytes;
+
+        InMemoryFileManager(JavaFileManager delegate, long maxClassBytes) {
+            super(delegate);
+            this.maxClassBytes = maxClassBytes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile classFile = new ClassFile(className);
+            classFiles.put(className, classFile);
+            return classFile;
+        }
+
+        @Override
+        public void close() {
+            // The delegate is a warm, thread-confined file manager that outlives this compilation
+        }
+
+        boolean isOverLimit() {
+            long total = 0;
+            for (ClassFile classFile : classFiles.values()) {
+                total += classFile.bytes.size();
+            }
+            return total > maxClassBytes;
+        }
+
+        Map<String, byte[]> getClassFiles() {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            for (Map.Entry<String, ClassFile> entry : classFiles.entrySet()) {
+                result.put(entry.getKey().replace('.', '/') + JavaFileObject.Kind.CLASS.extension, entry.getValue().bytes.toByteArray());
+            }
+            return result;
+        }
+    }
+}
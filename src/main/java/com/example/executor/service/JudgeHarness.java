@@ -0,0 +1,203 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import com.example.executor.harness.JudgeRunner;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.model.TestRun;
+import com.example.executor.utility.ClassFileScanner;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Prepares and interprets multi-test runs of Java submissions.
+ * All test cases are fed through one sandboxed JVM running {@link JudgeRunner},
+ * so JVM startup is paid once per submission instead of once per test case.
+ *
+ * <p>The runner swaps {@code System.in} and {@code System.out} per test, which does not reach streams opened on
+ * {@link java.io.FileDescriptor#in} or {@link java.io.FileDescriptor#out} directly (a common fast-IO idiom).
+ * Submissions referencing those are run one test per JVM instead.</p>
+ */
+@Slf4j
+@Service
+public class JudgeHarness {
+
+    private static final String RUNNER_CLASS_FILE = JudgeRunner.class.getName().replace('.', '/') + ".class";
+    private static final String FILE_DESCRIPTOR_CLASS = "java/io/FileDescriptor";
+    private static final Set<String> STANDARD_DESCRIPTORS = Set.of("in", "out", "err");
+
+    @Value("${executor.java.harness.enabled:true}")
+    private boolean enabled;
+
+    private byte[] runnerClassBytes;
+
+    @PostConstruct
+    public void initialize() {
+        try (InputStream in = JudgeRunner.class.getClassLoader().getResourceAsStream(RUNNER_CLASS_FILE)) {
+            if (in == null) {
+                log.warn("Judge runner class not found on classpath, multi-test harness disabled");
+                enabled = false;
+                return;
+            }
+            runnerClassBytes = in.readAllBytes();
+        } catch (IOException e) {
+            log.warn("Failed to load judge runner class, multi-test harness disabled", e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * Checks whether a submission should be run through the multi-test harness.
+     *
+     * @param language  the submission language
+     * @param testCount number of test cases to run
+     * @param boxPath   the box holding the compiled submission
+     * @return true for Java submissions with more than one test case when the harness is enabled,
+     * unless the submission opens the standard file descriptors directly
+     */
+    public boolean isApplicable(String language, int testCount, Path boxPath) {
+        return enabled && testCount > 1 && ExecutorConstants.LANG_JAVA.equalsIgnoreCase(language)
+                && !usesStandardDescriptors(boxPath);
+    }
+
+    /**
+     * Scans the submission's classes (all in the default package) for references to
+     * {@code FileDescriptor.in}, {@code out} or {@code err}. Unreadable classes count as a reference.
+     */
+    private boolean usesStandardDescriptors(Path boxPath) {
+        try (Stream<Path> files = Files.list(boxPath)) {
+            for (Path classFile : files.filter(path -> path.getFileName().toString().endsWith(".class")).toList()) {
+                if (ClassFileScanner.referencesField(Files.readAllBytes(classFile), FILE_DESCRIPTOR_CLASS, STANDARD_DESCRIPTORS)) {
+                    log.debug("{} opens the standard file descriptors, running tests one by one", classFile.getFileName());
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to scan compiled classes, running tests one by one: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Copies the runner class into the box. Without a mounted input store, the test inputs are copied too.
+     *
+     * @param boxPath         the box directory
+     * @param inputs          test inputs of this run in order
+     * @param inputsInBox     true if the inputs are not available from the input store
+     * @param expectedOutputs expected outputs in order for a fail-fast run, empty to run every test
+     */
+    public void prepare(Path boxPath, List<String> inputs, boolean inputsInBox, List<String> expectedOutputs) throws IOException {
+        Path runnerPath = boxPath.resolve(RUNNER_CLASS_FILE);
+        Files.createDirectories(runnerPath.getParent());
+        Files.write(runnerPath, runnerClassBytes);
+
+        if (inputsInBox) {
+            for (int i = 0; i < inputs.size(); i++) {
+                Files.writeString(inputPath(boxPath, i), inputs.get(i));
+            }
+        }
+        for (int i = 0; i < expectedOutputs.size(); i++) {
+            Files.writeString(boxPath.resolve(ExecutorConstants.HARNESS_EXPECTED_PREFIX + i + ExecutorConstants.HARNESS_FILE_SUFFIX),
+                    expectedOutputs.get(i));
+        }
+        Files.deleteIfExists(boxPath.resolve(ExecutorConstants.HARNESS_REPORT_FILE));
+    }
+
+    /**
+     * Arguments passed to the JVM after the memory and GC flags.
+     *
+     * @param testCount  number of test cases
+     * @param inputDir   sandbox directory holding the input files
+     * @param firstInput index of the first test's input file in that directory
+     * @param limits     the per-test limits the runner enforces
+     * @param failFast   stop after the first wrong output, needs the expected outputs passed to {@link #prepare}
+     * @return class path, runner class and its arguments
+     */
+    public String[] runnerArguments(int testCount, String inputDir, int firstInput, ResourceLimits limits, boolean failFast) {
+        return new String[]{
+                "-cp", ".",
+                JudgeRunner.class.getName(),
+                String.valueOf(testCount),
+                String.valueOf(limits.timeMillis()),
+                String.valueOf(limits.wallTimeMillis()),
+                inputDir,
+                String.valueOf(firstInput),
+                String.valueOf(failFast)
+        };
+    }
+
+    /**
+     * Reads the per-test results the runner managed to report.
+     * The list is in test order and stops at the first test without a report.
+     * Outputs are left in the box, see {@link #outputPath(Path, int)} and {@link #errorPath(Path, int)}.
+     *
+     * @param boxPath the box directory
+     * @return reported results, possibly empty if the harness JVM failed to start
+     */
+    public List<TestRun> readResults(Path boxPath) {
+        List<TestRun> results = new ArrayList<>();
+        Path reportFile = boxPath.resolve(ExecutorConstants.HARNESS_REPORT_FILE);
+        if (!Files.exists(reportFile)) {
+            return results;
+        }
+
+        try {
+            for (String line : Files.readAllLines(reportFile)) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length != 4) {
+                    break;
+                }
+                int index = Integer.parseInt(parts[0]);
+                if (index != results.size()) {
+                    break;
+                }
+                // The runner reports OK for a test that ran to completion; its output is judged afterwards
+                Verdict status = "OK".equals(parts[1]) ? Verdict.AC : Verdict.valueOf(parts[1]);
+                results.add(new TestRun(index, status, Double.parseDouble(parts[2]),
+                        Long.parseLong(parts[3]) / 1024.0, null, null, false, RuntimeErrorType.NONE));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read harness report: {}", e.getMessage());
+        }
+        return results;
+    }
+
+    private Path inputPath(Path boxPath, int index) {
+        return boxPath.resolve(ExecutorConstants.HARNESS_INPUT_PREFIX + index + ExecutorConstants.HARNESS_FILE_SUFFIX);
+    }
+
+    /**
+     * File the runner wrote a test's output to.
+     *
+     * @param boxPath the box directory
+     * @param index   test index within the harness run
+     * @return the output file
+     */
+    public Path outputPath(Path boxPath, int index) {
+        return boxPath.resolve(ExecutorConstants.HARNESS_OUTPUT_PREFIX + index + ExecutorConstants.HARNESS_FILE_SUFFIX);
+    }
+
+    /**
+     * File the runner wrote a test's stderr and uncaught exception to.
+     *
+     * @param boxPath the box directory
+     * @param index   test index within the harness run
+     * @return the error file
+     */
+    public Path errorPath(Path boxPath, int index) {
+        return boxPath.resolve(ExecutorConstants.HARNESS_ERROR_PREFIX + index + ExecutorConstants.HARNESS_FILE_SUFFIX);
+    }
+}
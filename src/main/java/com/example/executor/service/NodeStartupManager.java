@@ -0,0 +1,305 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.utility.ProcessRunner;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prepares faster start-up modes for the sandboxed Node.js runtime.
+ * A judge loader compiles the submission with a V8 code cache kept next to it in the box, so every test case after
+ * the first one of a submission skips parsing and compiling it; box cleanup discards the cache with the submission.
+ * When the detected Node version supports user-land snapshots, the loader is also built into a startup snapshot
+ * with the stdin-reading built-ins already loaded. Each supported mode is timed on a sample workload at startup
+ * and the fastest one is used; the loader directory is bind-mounted read-only into every box.
+ * Until a mode is chosen, and whenever preparing one fails, submissions run as plain {@code node main.js}.
+ */
+@Slf4j
+@Service
+public class NodeStartupManager {
+
+    private static final int TRIAL_RUNS = 5;
+    private static final String STAGING_PREFIX = ".tmp-node-";
+    private static final Pattern VERSION_PATTERN = Pattern.compile("v(\\d+)\\.(\\d+)");
+    private static final String WORKLOAD_INPUT = "5\n3 1 4 1 5\nhello world\n";
+    private static final String WORKLOAD_OUTPUT = "1 1 3 4 5\nworld hello\n";
+    private static final String WORKLOAD_SOURCE = """
+            const lines = require('fs').readFileSync(0, 'utf8').split('\\n');
+            const n = parseInt(lines[0], 10);
+            const values = lines[1].split(' ').slice(0, n).map(Number).sort((a, b) => a - b);
+            const words = lines[2].trim().split(/\\s+/).reverse();
+            const counts = new Map();
+            for (const word of words) {
+                counts.set(word, (counts.get(word) || 0) + 1);
+            }
+            console.log(values.join(' '));
+            console.log([...counts.keys()].join(' '));
+            """;
+
+    // Built-ins preloaded at the top are captured in the snapshot heap; vm and module are required lazily
+    // because they cannot be serialized. Run without a snapshot, argv[1] is the loader itself and is dropped
+    // so the submission sees the same argv either way.
+    private static final String LOADER_SOURCE = """
+            'use strict';
+            const fs = require('fs');
+            const path = require('path');
+            const readline = require('readline');
+            const v8 = require('v8');
+
+            let fromSnapshot = false;
+
+            function run() {
+              const vm = require('vm');
+              const Module = require('module');
+              if (!fromSnapshot) {
+                process.argv.splice(1, 1);
+              }
+              const file = path.resolve(process.argv[1]);
+              const cacheFile = path.join(path.dirname(file), '.node-cache', path.basename(file) + '.v8');
+              const source = fs.readFileSync(file, 'utf8');
+              let cachedData;
+              try {
+                cachedData = fs.readFileSync(cacheFile);
+              } catch (e) {
+                cachedData = undefined;
+              }
+              const script = new vm.Script(Module.wrap(source), { filename: file, cachedData });
+              if (cachedData === undefined || script.cachedDataRejected) {
+                process.once('exit', () => {
+                  try {
+                    fs.mkdirSync(path.dirname(cacheFile), { recursive: true });
+                    fs.writeFileSync(cacheFile, script.createCachedData());
+                  } catch (e) {
+                    // The cache is an optimization only
+                  }
+                });
+              }
+              const mainModule = new Module(file, null);
+              mainModule.id = '.';
+              mainModule.filename = file;
+              mainModule.paths = Module._nodeModulePaths(path.dirname(file));
+              process.mainModule = mainModule;
+              const localRequire = Module.createRequire(file);
+              localRequire.main = mainModule;
+              script.runInThisContext().call(mainModule.exports, mainModule.exports, localRequire, mainModule, file, path.dirname(file));
+            }
+
+            if (v8.startupSnapshot && v8.startupSnapshot.isBuildingSnapshot()) {
+              fromSnapshot = true;
+              v8.startupSnapshot.setDeserializeMainFunction(run);
+            } else {
+              run();
+            }
+            """;
+
+    private enum Mode {
+        PLAIN, CODE_CACHE, SNAPSHOT
+    }
+
+    private final TestCaseLoader testCaseLoader;
+    private final ProcessRunner processRunner;
+
+    @Value("${executor.node.startup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.node.startup.dir:/var/local/lib/hackstack-node}")
+    private String startupDir;
+
+    private volatile Mode mode = Mode.PLAIN;
+
+    public NodeStartupManager(TestCaseLoader testCaseLoader, ProcessRunner processRunner) {
+        this.testCaseLoader = testCaseLoader;
+        this.processRunner = processRunner;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        Thread generator = new Thread(this::prepare, "node-startup");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    /**
+     * Writes the loader, builds the snapshot when supported and switches to the fastest mode that produces the
+     * expected output on the sample workload.
+     *
+     * @return true if a mode faster than plain node is in use
+     */
+    public synchronized boolean prepare() {
+        mode = Mode.PLAIN;
+        Path workDir = null;
+        try {
+            Path root = Files.createDirectories(Paths.get(startupDir).toAbsolutePath().normalize());
+            String version = runProcess(List.of(testCaseLoader.getNodePath(), "--version"), null, null).trim();
+            Matcher matcher = VERSION_PATTERN.matcher(version);
+            if (!matcher.find()) {
+                log.warn("Could not detect the Node.js version ({}), running without startup optimizations", version);
+                return false;
+            }
+            int major = Integer.parseInt(matcher.group(1));
+            int minor = Integer.parseInt(matcher.group(2));
+
+            // Staged inside the startup directory so installing files never renames across filesystems
+            deleteStaleStaging(root);
+            workDir = Files.createTempDirectory(root, STAGING_PREFIX);
+            List<Mode> candidates = new ArrayList<>(List.of(Mode.PLAIN));
+            // vm.Script code caches with Module.createRequire: 12.2+; user-land startup snapshots: 18.8+
+            if (major > 12 || (major == 12 && minor >= 2)) {
+                install(workDir, root, ExecutorConstants.NODE_LOADER_FILE, LOADER_SOURCE);
+                candidates.add(Mode.CODE_CACHE);
+                if ((major > 18 || (major == 18 && minor >= 8)) && buildSnapshot(workDir, root)) {
+                    candidates.add(Mode.SNAPSHOT);
+                }
+            }
+
+            Mode fastest = fastestMode(workDir, root, candidates);
+            mode = fastest;
+            log.info("Node.js {} runs submissions in {} mode (supported: {})", version, fastest, candidates);
+            return fastest != Mode.PLAIN;
+        } catch (Exception e) {
+            log.warn("Could not prepare Node.js startup optimizations, running without them: {}", e.getMessage());
+            mode = Mode.PLAIN;
+            return false;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Node command line for a sandboxed run of the given file, using the fastest prepared mode.
+     *
+     * @param mainFile the submission file, relative to the box
+     * @return the command and its arguments
+     */
+    public String[] command(String mainFile) {
+        return command(currentMode(), ExecutorConstants.NODE_SANDBOX_DIR, mainFile).toArray(new String[0]);
+    }
+
+    /**
+     * Extra isolate arguments exposing the loader directory read-only inside the box.
+     *
+     * @return isolate --dir arguments, empty when running plain node
+     */
+    public List<String> isolateDirectories() {
+        if (currentMode() == Mode.PLAIN) {
+            return List.of();
+        }
+        return List.of("--dir=" + ExecutorConstants.NODE_SANDBOX_DIR + "=" + Paths.get(startupDir).toAbsolutePath().normalize());
+    }
+
+    private Mode currentMode() {
+        Mode current = mode;
+        String file = current == Mode.SNAPSHOT ? ExecutorConstants.NODE_SNAPSHOT_FILE : ExecutorConstants.NODE_LOADER_FILE;
+        if (current != Mode.PLAIN && !Files.exists(Paths.get(startupDir, file))) {
+            log.warn("{} disappeared, falling back to plain node", file);
+            mode = Mode.PLAIN;
+            return Mode.PLAIN;
+        }
+        return current;
+    }
+
+    private List<String> command(Mode runMode, String directory, String mainFile) {
+        List<String> command = new ArrayList<>();
+        command.add(testCaseLoader.getNodePath());
+        switch (runMode) {
+            case SNAPSHOT -> command.addAll(List.of("--snapshot-blob", directory + "/" + ExecutorConstants.NODE_SNAPSHOT_FILE));
+            case CODE_CACHE -> command.add(directory + "/" + ExecutorConstants.NODE_LOADER_FILE);
+            case PLAIN -> {
+            }
+        }
+        command.add(mainFile);
+        return command;
+    }
+
+    private boolean buildSnapshot(Path workDir, Path root) throws IOException, InterruptedException {
+        Path blob = workDir.resolve(ExecutorConstants.NODE_SNAPSHOT_FILE);
+        String output = runProcess(List.of(testCaseLoader.getNodePath(), "--snapshot-blob", blob.toString(), "--build-snapshot",
+                root.resolve(ExecutorConstants.NODE_LOADER_FILE).toString()), null, workDir);
+        if (!Files.exists(blob)) {
+            log.warn("Node.js did not build a startup snapshot: {}", output.trim());
+            return false;
+        }
+        Files.move(blob, root.resolve(ExecutorConstants.NODE_SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    /**
+     * Times each candidate on the workload, after one untimed run that writes the code cache.
+     * Candidates whose output is wrong are skipped.
+     */
+    private Mode fastestMode(Path workDir, Path root, List<Mode> candidates) throws IOException, InterruptedException {
+        Path input = workDir.resolve(ExecutorConstants.INPUT_FILE);
+        Files.writeString(input, WORKLOAD_INPUT);
+
+        Mode fastest = Mode.PLAIN;
+        long fastestNanos = Long.MAX_VALUE;
+        for (Mode candidate : candidates) {
+            Path runDir = Files.createDirectory(workDir.resolve(candidate.name().toLowerCase(Locale.ROOT)));
+            Files.writeString(runDir.resolve(ExecutorConstants.JS_MAIN_FILE), WORKLOAD_SOURCE);
+            List<String> command = command(candidate, root.toString(), ExecutorConstants.JS_MAIN_FILE);
+
+            String output = runProcess(command, input, runDir);
+            if (!WORKLOAD_OUTPUT.equals(output)) {
+                log.warn("Node.js {} mode produced unexpected output: {}", candidate, output.trim());
+                continue;
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < TRIAL_RUNS; i++) {
+                runProcess(command, input, runDir);
+            }
+            long elapsed = System.nanoTime() - start;
+            log.debug("Node.js {} mode: {} ms per run", candidate, elapsed / TRIAL_RUNS / 1_000_000);
+            if (elapsed < fastestNanos) {
+                fastest = candidate;
+                fastestNanos = elapsed;
+            }
+        }
+        return fastest;
+    }
+
+    private void install(Path workDir, Path root, String fileName, String content) throws IOException {
+        Path staged = workDir.resolve(fileName);
+        Files.writeString(staged, content);
+        Files.move(staged, root.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes staging directories left behind by a preparation that was killed midway.
+     */
+    private void deleteStaleStaging(Path root) throws IOException {
+        try (var entries = Files.list(root)) {
+            entries.filter(path -> path.getFileName().toString().startsWith(STAGING_PREFIX)).toList().forEach(this::deleteRecursively);
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private String runProcess(List<String> command, Path stdin, Path workDir) throws IOException, InterruptedException {
+        return processRunner.run(command, workDir, stdin).output();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.utility.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares results between identical submissions: same language, code, execution mode and version of the problem's tests.
+ * Finished results are kept in Redis for a while, and a submission arriving while an identical one is still
+ * running waits for that execution instead of starting its own. Only the submission-specific fields
+ * of the response differ between the submissions sharing a result.
+ */
+@Slf4j
+@Service
+public class ResultCache {
+
+    private static final Set<RuntimeErrorType> ENVIRONMENT_ERRORS =
+            EnumSet.of(RuntimeErrorType.JVM_INIT_FAILURE, RuntimeErrorType.KILLED_BY_SIGNAL);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${executor.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.result-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+    public ResultCache(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Claim on the result of a submission. The leader executes it and completes the result;
+     * everyone else uses the result once it completes.
+     *
+     * @param key    the result key, null if the result is not shared
+     * @param leader true if the holder has to execute the submission
+     * @param result the shared result
+     */
+    public record Claim(String key, boolean leader, CompletableFuture<Response> result) {
+    }
+
+    /**
+     * Builds the result key of a submission.
+     *
+     * @param executorInput the submission
+     * @param testVersion   version of the problem's test data
+     * @return hex encoded SHA-256 of the language, execution mode, test version, problem and code
+     */
+    public String key(ExecutorInput executorInput, String testVersion) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{executorInput.getLanguage().toLowerCase(Locale.ROOT), executorInput.getMode().name(),
+                    testVersion, executorInput.getProblemName(), executorInput.getCode()}) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Claims the result of a submission: a completed result from Redis, the pending result of an identical
+     * running submission, or leadership if neither exists.
+     *
+     * @param key the result key, or null if the submission cannot be shared
+     * @return the claim
+     */
+    public Claim claim(String key) {
+        if (!enabled || key == null) {
+            return new Claim(null, true, new CompletableFuture<>());
+        }
+
+        CompletableFuture<Response> running = inFlight.get(key);
+        if (running == null) {
+            Response cached = lookup(key);
+            if (cached != null) {
+                return new Claim(key, false, CompletableFuture.completedFuture(cached));
+            }
+        }
+
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        running = inFlight.putIfAbsent(key, result);
+        if (running != null) {
+            log.debug("Joining running execution of result {}", key);
+            return new Claim(key, false, running);
+        }
+        return new Claim(key, true, result);
+    }
+
+    /**
+     * Completes a leader's claim, caching the result unless it depends on the executor's state.
+     *
+     * @param claim    the leader's claim
+     * @param response the result, or null if the execution was abandoned (the waiting submissions are then failed)
+     */
+    public void complete(Claim claim, Response response) {
+        if (claim.key() != null) {
+            // Stored before leaving the in-flight map, so an identical submission always finds one of the two
+            if (response != null && isCacheable(response)) {
+                store(claim.key(), response);
+            }
+            inFlight.remove(claim.key(), claim.result());
+        }
+        if (response != null) {
+            claim.result().complete(response);
+        } else {
+            claim.result().completeExceptionally(new IllegalStateException("Execution abandoned"));
+        }
+    }
+
+    /**
+     * @return number of distinct submissions currently executing with a shared result
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    // Internal errors say nothing about the code, time limits depend on the load at the time, and so do runtime
+    // errors of a JVM that could not start or a process killed from outside
+    private boolean isCacheable(Response response) {
+        if (response.getVerdict() == Verdict.RE || response.getVerdict() == Verdict.MLE) {
+            return !ENVIRONMENT_ERRORS.contains(response.getErrorType());
+        }
+        return response.getVerdict() != Verdict.IE && response.getVerdict() != Verdict.TLE;
+    }
+
+    private Response lookup(String key) {
+        try {
+            Object value = redisTemplate.opsForValue().get(ExecutorConstants.REDIS_RESULT_PREFIX + key);
+            if (value instanceof Response response) {
+                log.debug("Result cache hit: {}", key);
+                return response;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read result cache: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void store(String key, Response response) {
+        try {
+            redisTemplate.opsForValue().set(ExecutorConstants.REDIS_RESULT_PREFIX + key, response, Duration.ofMinutes(ttlMinutes));
+        } catch (Exception e) {
+            log.warn("Failed to write result cache: {}", e.getMessage());
+        }
+    }
+}
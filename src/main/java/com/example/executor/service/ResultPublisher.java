@@ -0,0 +1,97 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.Response;
+import com.example.executor.utility.ResponseManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes results to the results topic without blocking the caller.
+ * Results are serialized straight to bytes and keyed by submission ID, so all results of a submission land on
+ * the same partition; the producer batches and compresses them (see the producer settings). Delivery is confirmed
+ * through the send callback and retried a bounded number of times on top of the producer's own retries.
+ */
+@Slf4j
+@Service
+public class ResultPublisher {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final ResponseManager responseManager;
+    private final ExecutionMetrics executionMetrics;
+
+    @Value("${executor.pipeline.publish-attempts:3}")
+    private int publishAttempts;
+
+    public ResultPublisher(KafkaTemplate<String, byte[]> kafkaTemplate, ObjectMapper objectMapper,
+                           ResponseManager responseManager, ExecutionMetrics executionMetrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.responseManager = responseManager;
+        this.executionMetrics = executionMetrics;
+    }
+
+    /**
+     * Publishes a result for a submission.
+     *
+     * @param executorInput the submission
+     * @param result        its result, possibly shared with identical submissions; it is not modified
+     * @return completes with true once the broker acknowledged the result, or with false once it was given up on;
+     * never completes exceptionally
+     */
+    public CompletableFuture<Boolean> publish(ExecutorInput executorInput, Response result) {
+        Response response = responseManager.copyOf(result);
+        response.setSubmissionId(executorInput.getSubmissionId());
+        response.setUserId(executorInput.getUserId());
+        response.setProblemId(executorInput.getProblemId());
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(response);
+        } catch (Exception e) {
+            log.error("Failed to serialize result of submission {}", executorInput.getSubmissionId(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> delivered = new CompletableFuture<>();
+        send(executorInput, response, payload, 1, executionMetrics.startPhase(), delivered);
+        return delivered;
+    }
+
+    private void send(ExecutorInput executorInput, Response response, byte[] payload, int attempt, Timer.Sample sample,
+                      CompletableFuture<Boolean> delivered) {
+        String submissionId = executorInput.getSubmissionId();
+        CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = kafkaTemplate.send(ExecutorConstants.KAFKA_TOPIC_RESULTS, submissionId, payload);
+        } catch (Exception e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        sent.whenComplete((sendResult, error) -> {
+            if (error == null) {
+                executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_PUBLISH, executorInput.getLanguage(), executorInput.getProblemName());
+                log.info("Published result of submission {}: {} ({} bytes, partition {})", submissionId,
+                        response.getVerdict(), payload.length, sendResult.getRecordMetadata().partition());
+                delivered.complete(true);
+            } else if (attempt < publishAttempts) {
+                log.warn("Failed to publish result of submission {} (attempt {}/{}): {}", submissionId, attempt,
+                        publishAttempts, error.getMessage());
+                send(executorInput, response, payload, attempt + 1, sample, delivered);
+            } else {
+                log.error("Giving up on publishing result of submission {} after {} attempts", submissionId, publishAttempts, error);
+                delivered.complete(false);
+            }
+        });
+    }
+}
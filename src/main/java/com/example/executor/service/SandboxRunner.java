@@ -0,0 +1,389 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.ExecutionMode;
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.model.IsolateMeta;
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.model.TestRun;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.IsolateMetaParser;
+import com.example.executor.utility.RuntimeErrorClassifier;
+import com.example.executor.utility.StreamingOutputComparator;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs test cases of an already compiled submission inside one isolate box and checks their output.
+ */
+@Slf4j
+@Service
+public class SandboxRunner {
+
+    private static final long PROCESS_STOP_TIMEOUT_SECONDS = 5;
+
+    private final TestCaseLoader testCaseLoader;
+    private final JudgeHarness judgeHarness;
+    private final CdsArchiveManager cdsArchiveManager;
+    private final NodeStartupManager nodeStartupManager;
+    private final ExecutionMetrics executionMetrics;
+    private final TestInputStore testInputStore;
+
+    @Value("${executor.isolate.path:isolate}")
+    private String isolatePath;
+
+    @Value("${executor.output.max-bytes:67108864}")
+    private long maxOutputBytes;
+
+    @Value("${executor.output.snippet-chars:1024}")
+    private int snippetChars;
+
+    public SandboxRunner(TestCaseLoader testCaseLoader, JudgeHarness judgeHarness, CdsArchiveManager cdsArchiveManager,
+                         NodeStartupManager nodeStartupManager, ExecutionMetrics executionMetrics, TestInputStore testInputStore) {
+        this.testCaseLoader = testCaseLoader;
+        this.judgeHarness = judgeHarness;
+        this.cdsArchiveManager = cdsArchiveManager;
+        this.nodeStartupManager = nodeStartupManager;
+        this.executionMetrics = executionMetrics;
+        this.testInputStore = testInputStore;
+    }
+
+    /**
+     * Host path of a box's working directory.
+     *
+     * @param boxId the box ID
+     * @return the box directory
+     */
+    public Path boxPath(String boxId) {
+        return Paths.get(ExecutorConstants.BOX_BASE_PATH + boxId, "box");
+    }
+
+    /**
+     * Runs the test cases {@code [from, to)} in the given box and compares each output against the expected output.
+     * Stops after the first test that ends the submission (see {@link #stopsExecution}), and skips tests past
+     * the lowest such index recorded in {@code firstFailure}, which is shared between the shards of one submission.
+     *
+     * @param boxId         the box holding the compiled submission
+     * @param executorInput the submission
+     * @param testData      the problem's test data
+     * @param from          first test index (inclusive)
+     * @param to            last test index (exclusive)
+     * @param firstFailure  lowest test index that ended the submission so far
+     * @return the runs in test order
+     */
+    public List<TestRun> runTests(String boxId, ExecutorInput executorInput, ProblemTestData testData, int from, int to,
+                                  AtomicInteger firstFailure) throws IOException, InterruptedException {
+        String language = executorInput.getLanguage();
+        String problemName = executorInput.getProblemName();
+        ExecutionMode mode = executorInput.getMode();
+        // Inputs are read from the read-only store when available, otherwise copied into the box.
+        // Either way an input is only fetched right before the first run that needs it
+        Path inputDir = testInputStore.materialize(testData);
+        ResourceLimits limits = testData.limitsFor(language);
+        List<TestRun> runs = new ArrayList<>();
+        if (from > firstFailure.get()) {
+            return runs;
+        }
+
+        Path boxPath = boxPath(boxId);
+        Path metaFile = boxPath.resolve(ExecutorConstants.META_FILE);
+
+        // Java submissions run all tests in one JVM; anything the harness could not report is re-run one by one
+        if (judgeHarness.isApplicable(language, to - from, boxPath)) {
+            if (inputDir != null && !testInputStore.storeInputs(inputDir, testData, from, to)) {
+                inputDir = null;
+            }
+            Timer.Sample sample = executionMetrics.startPhase();
+            List<TestRun> harnessRuns = runHarness(boxId, boxPath, inputDir, testData, from, to, metaFile, limits, mode);
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_HARNESS, language, problemName);
+            for (TestRun run : harnessRuns) {
+                executionMetrics.recordSandboxUsage(language, problemName, run.getRuntime(), run.getMemory());
+                try (InputStream output = Files.newInputStream(judgeHarness.outputPath(boxPath, run.getIndex()))) {
+                    applyComparison(run, StreamingOutputComparator.compare(output, testData.getOutput(from + run.getIndex()),
+                            maxOutputBytes, snippetChars));
+                }
+                run.setError(readSnippet(judgeHarness.errorPath(boxPath, run.getIndex())));
+                // The runner reports RE and MLE only for a throwable that escaped main
+                if (run.getStatus() == Verdict.MLE) {
+                    run.setErrorType(RuntimeErrorType.OUT_OF_MEMORY);
+                } else if (run.getStatus() == Verdict.RE) {
+                    RuntimeErrorType errorType = RuntimeErrorClassifier.classify(run.getError());
+                    run.setErrorType(errorType == RuntimeErrorType.NONE ? RuntimeErrorType.UNCAUGHT_EXCEPTION : errorType);
+                }
+                run.setIndex(from + run.getIndex());
+                runs.add(run);
+                if (stopsExecution(run, mode)) {
+                    firstFailure.accumulateAndGet(run.getIndex(), Math::min);
+                    return runs;
+                }
+            }
+        }
+
+        Path inputFile = boxPath.resolve(ExecutorConstants.INPUT_FILE);
+        Path stderrFile = boxPath.resolve(ExecutorConstants.STDERR_FILE);
+        IsolateMeta meta = new IsolateMeta();
+        for (int i = from + runs.size(); i < to && i <= firstFailure.get(); i++) {
+            String stdin;
+            if (inputDir != null && testInputStore.storeInputs(inputDir, testData, i, i + 1)) {
+                stdin = ExecutorConstants.INPUT_STORE_SANDBOX_DIR + "/" + testInputStore.inputFileName(i);
+            } else {
+                Files.writeString(inputFile, testData.getInput(i));
+                stdin = ExecutorConstants.INPUT_FILE;
+            }
+
+            Timer.Sample sample = executionMetrics.startPhase();
+            ProcessOutcome outcome;
+            if (language.equalsIgnoreCase(ExecutorConstants.LANG_JAVA)) {
+                outcome = runInIsolateWithInput(boxId, limits, inputDir, stdin, testData.getOutput(i), metaFile.toString(), javaCommand(limits, "Main"));
+            } else {
+                outcome = runInIsolateWithInput(boxId, limits, inputDir, stdin, testData.getOutput(i), metaFile.toString(), nodeStartupManager.command(ExecutorConstants.JS_MAIN_FILE));
+            }
+
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_RUN, language, problemName);
+
+            // Parse meta file for runtime and memory
+            sample = executionMetrics.startPhase();
+            readMeta(metaFile, meta);
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_META, language, problemName);
+            executionMetrics.recordSandboxUsage(language, problemName, meta.getRuntime(), meta.getMemory());
+            TestRun run = new TestRun(i, Verdict.AC, meta.getRuntime(), meta.getMemory(), null, null, false, RuntimeErrorType.NONE);
+            applyComparison(run, outcome.comparator());
+            run.setError(readSnippet(stderrFile));
+            int exitCode = meta.getExitCode() != 0 ? meta.getExitCode() : outcome.exitCode();
+            if (outcome.comparator().isEmpty() && run.getError().isEmpty() && exitCode != 0) {
+                run.setError("Process exited with code: " + exitCode);
+            }
+            // A run the executor stopped itself was killed by a signal, which says nothing about the program
+            classify(run, outcome.stopped() ? null : meta);
+            runs.add(run);
+            if (stopsExecution(run, mode)) {
+                firstFailure.accumulateAndGet(i, Math::min);
+                break;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Checks whether a run ended the submission with a time limit, memory limit or runtime error.
+     *
+     * @param run the test run
+     * @return true if no further tests should be run
+     */
+    public boolean isRuntimeError(TestRun run) {
+        return run.getStatus() == Verdict.RE || run.getStatus() == Verdict.MLE || run.getStatus() == Verdict.TLE;
+    }
+
+    /**
+     * Checks whether a run ends the submission: a time limit, memory limit, runtime or sandbox error,
+     * and in fail-fast mode any test that did not pass.
+     *
+     * @param run  the test run
+     * @param mode the submission's execution mode
+     * @return true if no further tests should be run
+     */
+    public boolean stopsExecution(TestRun run, ExecutionMode mode) {
+        return isRuntimeError(run) || run.getStatus() == Verdict.IE || (mode == ExecutionMode.FAIL_FAST && run.getStatus() != Verdict.AC);
+    }
+
+    /**
+     * Bounded version of an expected output for result messages.
+     *
+     * @param expected the expected output
+     * @return the expected output, cut to the snippet size
+     */
+    public String expectedSnippet(String expected) {
+        return StreamingOutputComparator.snippet(expected.trim(), snippetChars);
+    }
+
+    /**
+     * Sets the status of a single run from the isolate meta status and the runtime error classifier,
+     * which only looks at the program's stderr.
+     */
+    private void classify(TestRun run, IsolateMeta meta) {
+        if (meta != null && "XX".equals(meta.getStatus())) {
+            // isolate itself failed, so neither the exit status nor stderr says anything about the program
+            run.setStatus(Verdict.IE);
+            return;
+        }
+        if (meta != null && "TO".equals(meta.getStatus())) {
+            run.setStatus(Verdict.TLE);
+            return;
+        }
+        RuntimeErrorType errorType = RuntimeErrorClassifier.classify(run.getError(), meta);
+        if (errorType != RuntimeErrorType.NONE) {
+            run.setStatus(errorType == RuntimeErrorType.OUT_OF_MEMORY ? Verdict.MLE : Verdict.RE);
+            run.setErrorType(errorType);
+        }
+    }
+
+    /**
+     * Bounded head and tail of a file the sandbox wrote, empty if it does not exist.
+     */
+    private String readSnippet(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return "";
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return StreamingOutputComparator.compare(in, null, maxOutputBytes, snippetChars).getOutput().trim();
+        }
+    }
+
+    private void applyComparison(TestRun run, StreamingOutputComparator comparator) {
+        run.setOutput(comparator.getOutput().trim());
+        run.setPassed(comparator.isMatch());
+        // Only a run that completed is judged on its output; sandbox failures keep their status
+        if (run.getStatus() == Verdict.AC && comparator.isLimitExceeded()) {
+            run.setStatus(Verdict.OLE);
+        } else if (run.getStatus() == Verdict.AC && !comparator.isMatch()) {
+            run.setStatus(Verdict.WA);
+        }
+    }
+
+    private ProcessOutcome runInIsolateWithInput(String boxId, ResourceLimits limits, Path inputDir, String stdin, String expected,
+                                                 String metaFile, String... innerCommand) throws IOException, InterruptedException {
+        return runInIsolate(boxId, limits, inputDir, stdin, expected, metaFile, limits.timeMillis(), limits.wallTimeMillis(), innerCommand);
+    }
+
+    private ProcessOutcome runInIsolate(String boxId, ResourceLimits limits, Path inputDir, String stdin, String expected, String metaFile,
+                                        long timeMillis, long wallTimeMillis, String... innerCommand) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(isolatePath);
+        command.add("--box-id=" + boxId);
+        command.add("--meta=" + metaFile);
+        command.add("--time=" + seconds(timeMillis));
+        command.add("--wall-time=" + seconds(wallTimeMillis));
+        command.add("--mem=" + limits.memoryKb());
+        command.add("--processes=" + limits.processes());
+        command.add("--fsize=" + Math.max(1, maxOutputBytes / 1024));
+        command.add("--stdin=" + stdin);
+        command.add("--stderr=" + ExecutorConstants.STDERR_FILE);
+
+        command.add("--dir=/usr/lib/jvm=/usr/lib/jvm:maybe");
+        command.add("--dir=/usr/share=/usr/share:maybe");
+        command.add("--dir=/usr/bin=/usr/bin:maybe");
+        command.add("--dir=/lib=/lib:maybe");
+        command.add("--dir=/lib64=/lib64:maybe");
+        command.add("--dir=/etc=/etc:maybe");
+        command.add("--dir=/tmp=/tmp:rw");
+        command.add("--dir=/opt=/opt:maybe");
+        command.addAll(cdsArchiveManager.isolateDirectories());
+        command.addAll(nodeStartupManager.isolateDirectories());
+        if (inputDir != null) {
+            command.add(testInputStore.isolateDirectory(inputDir));
+        }
+
+        command.add("--run");
+        command.add("--");
+        command.addAll(Arrays.asList(innerCommand));
+
+        return executeProcess(command, expected);
+    }
+
+    /**
+     * Runs every test case through the multi-test judge runner in a single sandboxed JVM.
+     * The isolate limits are scaled by the number of tests; the runner enforces the per-test limits itself.
+     * In fail-fast mode the runner gets the expected outputs and stops after the first wrong one.
+     */
+    private List<TestRun> runHarness(String boxId, Path boxPath, Path inputDir, ProblemTestData testData, int from, int to,
+                                     Path metaFile, ResourceLimits limits, ExecutionMode mode) throws IOException, InterruptedException {
+        boolean failFast = mode == ExecutionMode.FAIL_FAST;
+        List<String> expectedOutputs = new ArrayList<>();
+        for (int i = from; failFast && i < to; i++) {
+            expectedOutputs.add(testData.getOutput(i));
+        }
+        // The runner reads every input of the range, so they are fetched up front, into the box without the input store
+        judgeHarness.prepare(boxPath, inputDir == null ? testData.getInputs(from, to) : List.of(), inputDir == null, expectedOutputs);
+        Files.writeString(boxPath.resolve(ExecutorConstants.INPUT_FILE), "");
+
+        int testCount = to - from;
+        String[] runnerArguments = inputDir != null
+                ? judgeHarness.runnerArguments(testCount, ExecutorConstants.INPUT_STORE_SANDBOX_DIR, from, limits, failFast)
+                : judgeHarness.runnerArguments(testCount, ".", 0, limits, failFast);
+        runInIsolate(boxId, limits, inputDir, ExecutorConstants.INPUT_FILE, null, metaFile.toString(),
+                limits.timeMillis() * testCount, limits.wallTimeMillis() * testCount,
+                javaCommand(limits, runnerArguments));
+
+        List<TestRun> harnessResults = judgeHarness.readResults(boxPath);
+        if (harnessResults.size() < testCount) {
+            log.info("Judge harness reported {}/{} test cases, running the rest individually. Output: {}",
+                    harnessResults.size(), testCount, readSnippet(boxPath.resolve(ExecutorConstants.STDERR_FILE)));
+        }
+        return harnessResults;
+    }
+
+    private String[] javaCommand(ResourceLimits limits, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(testCaseLoader.getJavaPath());
+        command.addAll(cdsArchiveManager.jvmOptions(limits.heapMb()));
+        command.addAll(Arrays.asList(arguments));
+        return command.toArray(new String[0]);
+    }
+
+    /**
+     * Formats a limit for isolate, which takes fractional seconds.
+     */
+    private static String seconds(long millis) {
+        return millis % 1000 == 0 ? String.valueOf(millis / 1000) : String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    /**
+     * Reads the isolate meta file of the last run into the reused meta instance.
+     */
+    private void readMeta(Path metaFile, IsolateMeta meta) {
+        try {
+            IsolateMetaParser.parse(metaFile, meta);
+        } catch (Exception e) {
+            log.warn("Failed to parse meta file: {}", e.getMessage());
+            meta.reset();
+        }
+    }
+
+    /**
+     * Streams the sandbox output through a comparator instead of buffering it. The sandbox is stopped as soon as
+     * the output exceeds the limit or is known to be wrong. Isolate's own status messages go to its stderr,
+     * which is discarded; the program's stderr goes to {@link ExecutorConstants#STDERR_FILE} in the box.
+     */
+    private ProcessOutcome executeProcess(List<String> command, String expected) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = processBuilder.start();
+
+        StreamingOutputComparator comparator = new StreamingOutputComparator(expected, maxOutputBytes, snippetChars);
+        boolean stopped = false;
+        try (InputStream output = process.getInputStream()) {
+            if (!comparator.consume(output)) {
+                stopped = true;
+                // SIGTERM lets isolate kill the sandboxed program and write the meta file
+                process.destroy();
+                if (!process.waitFor(PROCESS_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+        comparator.finish();
+
+        int exitCode = process.waitFor();
+        return new ProcessOutcome(comparator, exitCode, stopped);
+    }
+
+    private record ProcessOutcome(StreamingOutputComparator comparator, int exitCode, boolean stopped) {
+    }
+}
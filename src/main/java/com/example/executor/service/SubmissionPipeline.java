@@ -0,0 +1,401 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.utility.BoxIdPool;
+import com.example.executor.utility.ConcurrencyController;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.Response;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decouples Kafka consumption from execution in three stages:
+ * the listener only enqueues submissions, a dispatcher hands each one to a worker once the
+ * {@link ConcurrencyController} admits another execution with the memory limit of its problem and a box is free,
+ * and the record is acknowledged once the {@link ResultPublisher} confirmed delivery of its result
+ * (or, after a bounded number of retries, once its delivery was given up on).
+ * When the queue reaches its capacity the listener container is paused, and resumed once the queue
+ * has drained to half of it, so consumer threads never block on long executions and never trigger rebalances.
+ * Offsets are committed out of order as workers finish (async acks), but only up to the oldest unfinished
+ * submission of each partition, so a crash redelivers everything that was not published.
+ * Submissions identical to a cached or running one take no box and share its result, see {@link ResultCache}.
+ * In batch mode the dispatcher drains up to a batch of queued submissions at once (typically the records of one
+ * poll), groups them by problem and language and dispatches each group together, looking up its test data and
+ * limits and fetching the first batch of its tests once. Records are still acknowledged one by one, so the commit guarantees hold.
+ */
+@Slf4j
+@Service
+public class SubmissionPipeline {
+
+    private final ExecutorService executorService;
+    private final ResultPublisher resultPublisher;
+    private final BoxIdPool boxIdPool;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ExecutionMetrics executionMetrics;
+    private final ResultCache resultCache;
+    private final ConcurrencyController concurrencyController;
+
+    @Value("${executor.pipeline.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${executor.pipeline.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${executor.pipeline.batch.max-size:16}")
+    private int batchMaxSize;
+
+    @Value("${executor.pipeline.publish-retries:5}")
+    private int publishRetries;
+
+    @Value("${executor.pipeline.publish-backoff-ms:1000}")
+    private long publishBackoffMillis;
+
+    @Value("${executor.pipeline.publish-backoff-max-ms:30000}")
+    private long publishBackoffMaxMillis;
+
+    private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+    private java.util.concurrent.ExecutorService workers;
+    private ScheduledExecutorService publishRetrier;
+    private Thread dispatcher;
+    private volatile boolean paused;
+    // Submissions taken from the queue by the dispatcher but not dispatched yet
+    private final AtomicInteger held = new AtomicInteger();
+
+    public SubmissionPipeline(ExecutorService executorService, ResultPublisher resultPublisher, BoxIdPool boxIdPool,
+                              KafkaListenerEndpointRegistry listenerRegistry, ExecutionMetrics executionMetrics,
+                              ResultCache resultCache, ConcurrencyController concurrencyController) {
+        this.executorService = executorService;
+        this.resultPublisher = resultPublisher;
+        this.boxIdPool = boxIdPool;
+        this.listenerRegistry = listenerRegistry;
+        this.executionMetrics = executionMetrics;
+        this.resultCache = resultCache;
+        this.concurrencyController = concurrencyController;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "execution-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        publishRetrier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "publish-retrier");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executionMetrics.gauge("executor.pipeline.queued", "Submissions waiting for a box", this::getQueuedCount);
+        executionMetrics.gauge("executor.pipeline.running", "Boxes currently executing submissions, shards included", this::getRunningCount);
+        executionMetrics.gauge("executor.result_cache.in_flight", "Distinct submissions running with a shared result",
+                resultCache::getInFlightCount);
+
+        dispatcher = new Thread(this::dispatch, "submission-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Queued and running submissions are not acknowledged and will be redelivered
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            workers.shutdownNow();
+            publishRetrier.shutdownNow();
+        }
+    }
+
+    /**
+     * Consume stage: queues the submission and pauses consumption when the queue is full.
+     *
+     * @param executorInput  the submission
+     * @param acknowledgment commits the record's offset once the result is published
+     */
+    @KafkaListener(id = ExecutorConstants.KAFKA_LISTENER_ID, idIsGroup = false,
+            topics = ExecutorConstants.KAFKA_TOPIC_EXECUTOR, groupId = ExecutorConstants.KAFKA_CONSUMER_GROUP)
+    public void onSubmission(ExecutorInput executorInput, Acknowledgment acknowledgment) {
+        queue.add(new Submission(executorInput, acknowledgment));
+        if (queue.size() >= queueCapacity && !paused) {
+            paused = true;
+            container().pause();
+            log.info("Submission queue full ({}), pausing consumption", queue.size());
+        }
+    }
+
+    /**
+     * @return number of submissions waiting for a box
+     */
+    public int getQueuedCount() {
+        return queue.size() + held.get();
+    }
+
+    /**
+     * @return number of boxes currently executing submissions, shard boxes included
+     */
+    public int getRunningCount() {
+        return concurrencyController.getRunning();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Submission> batch = new ArrayList<>();
+                batch.add(queue.take());
+                if (batchEnabled) {
+                    queue.drainTo(batch, batchMaxSize - 1);
+                }
+                held.set(batch.size());
+                resumeIfDrained();
+
+                for (List<Submission> members : groupOrSingle(batch)) {
+                    Group group;
+                    try {
+                        group = prepare(members);
+                    } catch (RuntimeException e) {
+                        log.error("Failed to prepare a group of {} submissions", members.size(), e);
+                        members.forEach(submission -> fail(submission, e));
+                        held.addAndGet(-members.size());
+                        continue;
+                    }
+                    for (Submission submission : members) {
+                        try {
+                            dispatch(submission, group);
+                        } catch (RuntimeException e) {
+                            log.error("Failed to dispatch submission {}", submission.executorInput().getSubmissionId(), e);
+                            fail(submission, e);
+                        }
+                        held.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Groups a batch, falling back to dispatching its submissions one by one if grouping fails.
+     */
+    private Collection<List<Submission>> groupOrSingle(List<Submission> batch) {
+        try {
+            return group(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to group a batch of {} submissions, dispatching them one by one", batch.size(), e);
+            return batch.stream().map(List::of).toList();
+        }
+    }
+
+    /**
+     * Answers a submission the dispatcher could not hand to a worker with an internal error.
+     */
+    private void fail(Submission submission, RuntimeException error) {
+        publish(submission, executorService.internalError(submission.executorInput(), "Dispatch failed: " + error.getMessage()));
+    }
+
+    /**
+     * Splits a batch by problem and language, keeping the arrival order within each group and ordering the groups
+     * by their first submission.
+     */
+    static Collection<List<Submission>> group(List<Submission> batch) {
+        if (batch.size() == 1) {
+            return List.of(batch);
+        }
+        Map<String, List<Submission>> groups = new LinkedHashMap<>();
+        for (Submission submission : batch) {
+            ExecutorInput executorInput = submission.executorInput();
+            String key = executorInput.getProblemName() + ":" + ResourceLimits.languageKey(executorInput.getLanguage());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(submission);
+        }
+        if (groups.size() < batch.size()) {
+            log.debug("Dispatching {} submissions in {} problem groups", batch.size(), groups.size());
+        }
+        return groups.values();
+    }
+
+    /**
+     * Looks up the test data and limits of a group once. A group of several submissions also fetches the first
+     * batch of the tests they run once, on a worker, instead of every execution racing to fetch it; the tests
+     * after it are still fetched only when a run reaches them.
+     */
+    private Group prepare(List<Submission> members) {
+        ExecutorInput first = members.get(0).executorInput();
+        ProblemTestData testData = executorService.testData(first);
+        if (testData == null) {
+            return new Group(null, ResourceLimits.DEFAULT, CompletableFuture.completedFuture(null));
+        }
+        CompletableFuture<Void> prefetched = CompletableFuture.completedFuture(null);
+        if (members.size() > 1) {
+            int testCount = members.stream().mapToInt(member -> executorService.testCount(member.executorInput(), testData)).max().orElse(0);
+            prefetched = CompletableFuture.runAsync(() -> testData.prefetch(testCount), workers)
+                    .exceptionally(error -> {
+                        log.warn("Could not prefetch test cases of {}: {}", testData.getProblemName(), error.getMessage());
+                        return null;
+                    });
+        }
+        return new Group(testData, testData.limitsFor(first.getLanguage()), prefetched);
+    }
+
+    /**
+     * Dispatch stage: answers identical submissions without a box, otherwise waits for admission and a box
+     * and hands the submission to a worker.
+     */
+    private void dispatch(Submission submission, Group group) throws InterruptedException {
+        // Identical submissions that are cached or already running are answered without a box
+        ResultCache.Claim claim = resultCache.claim(executorService.resultKey(submission.executorInput(), group.testData()));
+        if (!claim.leader()) {
+            claim.result().whenCompleteAsync((response, error) -> share(submission, response, error), workers);
+            return;
+        }
+
+        long memoryKb = group.limits().memoryKb();
+        boolean admitted = false;
+        String boxId = null;
+        try {
+            concurrencyController.acquire(memoryKb);
+            admitted = true;
+            Timer.Sample sample = executionMetrics.startPhase();
+            boxId = acquireBox();
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_BOX_ACQUIRE,
+                    submission.executorInput().getLanguage(), submission.executorInput().getProblemName());
+            String acquiredBoxId = boxId;
+            workers.execute(() -> execute(submission, group, acquiredBoxId, memoryKb, claim));
+        } catch (RuntimeException e) {
+            if (boxId != null) {
+                boxIdPool.release(boxId);
+            }
+            if (admitted) {
+                concurrencyController.release(memoryKb);
+            }
+            // Identical submissions waiting for this one run on their own
+            resultCache.complete(claim, null);
+            throw e;
+        }
+    }
+
+    private String acquireBox() throws InterruptedException {
+        while (true) {
+            try {
+                return boxIdPool.acquire();
+            } catch (RuntimeException e) {
+                log.warn("Waiting for a free box: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Execution stage: runs the submission, hands the result to identical submissions waiting for it,
+     * and acknowledges the record once its result is published.
+     */
+    private void execute(Submission submission, Group group, String boxId, long memoryKb, ResultCache.Claim claim) {
+        Response response = null;
+        try {
+            group.prefetched().join();
+            response = executorService.execute(submission.executorInput(), boxId, group.testData());
+        } catch (RuntimeException e) {
+            log.error("Execution of submission {} failed", submission.executorInput().getSubmissionId(), e);
+        } finally {
+            boxIdPool.release(boxId);
+            log.info("Released box ID {} back to pool", boxId);
+            concurrencyController.release(memoryKb);
+            // Without a result, identical submissions waiting for this one run on their own
+            resultCache.complete(claim, response);
+        }
+        publish(submission, response != null ? response
+                : executorService.internalError(submission.executorInput(), "Execution failed"));
+    }
+
+    /**
+     * Publishes a result shared by an identical submission. If that execution was abandoned,
+     * the submission is queued again to run on its own.
+     */
+    private void share(Submission submission, Response response, Throwable error) {
+        if (error != null) {
+            queue.add(submission);
+            return;
+        }
+        log.info("Sharing result of an identical submission with submission {}", submission.executorInput().getSubmissionId());
+        publish(submission, response);
+    }
+
+    private void publish(Submission submission, Response response) {
+        publish(submission, response, 0);
+    }
+
+    /**
+     * Acknowledges the record once its result is delivered. A result the publisher gave up on is published again,
+     * never executed again, after a capped exponential backoff; until then the partition's committed offset stays
+     * behind the record, so a crash redelivers it. After the last retry the record is acknowledged with an internal
+     * error logged, so one undeliverable result cannot hold back its partition for good.
+     */
+    private void publish(Submission submission, Response response, int retry) {
+        String submissionId = submission.executorInput().getSubmissionId();
+        resultPublisher.publish(submission.executorInput(), response).thenAccept(delivered -> {
+            if (delivered) {
+                submission.acknowledgment().acknowledge();
+            } else if (retry < publishRetries) {
+                long delay = Math.min(publishBackoffMaxMillis, publishBackoffMillis << Math.min(retry, 20));
+                log.warn("Retrying to publish the result of submission {} in {} ms (retry {}/{})", submissionId, delay,
+                        retry + 1, publishRetries);
+                publishRetrier.schedule(() -> publish(submission, response, retry + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                log.error("Dropping the result of submission {} after {} retries, acknowledging it as {}", submissionId,
+                        publishRetries, Verdict.IE);
+                executionMetrics.countVerdict(Verdict.IE, submission.executorInput().getLanguage(),
+                        submission.executorInput().getProblemName());
+                submission.acknowledgment().acknowledge();
+            }
+        });
+    }
+
+    private void resumeIfDrained() {
+        if (paused && queue.size() <= queueCapacity / 2) {
+            paused = false;
+            container().resume();
+            log.info("Submission queue drained ({}), resuming consumption", queue.size());
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(ExecutorConstants.KAFKA_LISTENER_ID);
+    }
+
+    record Submission(ExecutorInput executorInput, Acknowledgment acknowledgment) {
+    }
+
+    /**
+     * Submissions of one problem and language dispatched together.
+     *
+     * @param testData   the problem's test data, null if unavailable (the execution then reports it)
+     * @param limits     the sandbox limits for the language
+     * @param prefetched completes once the group's tests are fetched
+     */
+    private record Group(ProblemTestData testData, ResourceLimits limits, CompletableFuture<Void> prefetched) {
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.TestManifest;
+import com.example.executor.utility.TestCaseCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Node-local, size-bounded LRU cache of each problem's test data in front of Redis.
+ * Redis holds a {@link TestManifest} per problem and the compressed tests of each version in a hash with one
+ * field per test input and output; tests are fetched in batches only when a run reaches them.
+ * Entries carry the version stamp written by {@link TestCaseLoader}; a Redis pub/sub message on
+ * {@link ExecutorConstants#REDIS_CHANNEL_PROBLEM_UPDATES} evicts entries whose version changed, and entries
+ * older than the revalidation interval re-check the version key in case a message was missed.
+ * Hot problems are therefore served without any Redis round trip.
+ */
+@Slf4j
+@Service
+public class TestCaseCache implements MessageListener {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final long SUBSCRIBE_RETRY_MILLIS = 30_000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${executor.test-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.test-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${executor.test-cache.revalidate-seconds:60}")
+    private long revalidateSeconds;
+
+    @Value("${executor.test-cache.fetch-batch:16}")
+    private int fetchBatch;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public TestCaseCache(RedisTemplate<String, Object> redisTemplate, RedisTemplate<String, byte[]> binaryRedisTemplate,
+                         RedisConnectionFactory redisConnectionFactory) {
+        this.redisTemplate = redisTemplate;
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(redisConnectionFactory);
+        this.listenerContainer.addMessageListener(this, new ChannelTopic(ExecutorConstants.REDIS_CHANNEL_PROBLEM_UPDATES));
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        listenerContainer.afterPropertiesSet();
+
+        // Subscribe in the background so a Redis outage never blocks startup; until the subscription
+        // is up, the revalidation interval bounds how long a stale entry can be served
+        Thread subscriber = new Thread(() -> {
+            while (!listenerContainer.isRunning()) {
+                try {
+                    listenerContainer.start();
+                    log.info("Subscribed to {}", ExecutorConstants.REDIS_CHANNEL_PROBLEM_UPDATES);
+                } catch (Exception e) {
+                    log.warn("Could not subscribe to {}, retrying: {}", ExecutorConstants.REDIS_CHANNEL_PROBLEM_UPDATES, e.getMessage());
+                    try {
+                        Thread.sleep(SUBSCRIBE_RETRY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }, "test-cache-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    /**
+     * Returns the test data of a problem, fetching its manifest from Redis on a miss.
+     * The tests themselves are fetched lazily, see {@link ProblemTestData}.
+     *
+     * @param problemName the problem name
+     * @return the test data, or null if the problem has no test cases in Redis
+     */
+    public ProblemTestData get(String problemName) {
+        String problemKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName;
+        if (enabled) {
+            CachedEntry cached = lookup(problemName);
+            if (cached != null) {
+                if (System.currentTimeMillis() - cached.validatedAt < revalidateSeconds * 1000) {
+                    return cached.data;
+                }
+                Object version = redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_VERSION_SUFFIX);
+                if (Objects.equals(version, cached.data.getVersion())) {
+                    cached.validatedAt = System.currentTimeMillis();
+                    return cached.data;
+                }
+                invalidate(problemName, null);
+            }
+        }
+
+        Object manifest = redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_MANIFEST_SUFFIX);
+        if (!(manifest instanceof TestManifest testManifest)) {
+            return null;
+        }
+
+        ProblemTestData data = new ProblemTestData(problemName, testManifest, estimateSize(testManifest), fetchBatch,
+                (fetchManifest, inputs, from, to) -> fetchTests(problemName, fetchManifest, inputs, from, to));
+        if (enabled) {
+            store(data);
+        }
+        return data;
+    }
+
+    /**
+     * Drops a problem's cached test data unless it already has the given version.
+     *
+     * @param problemName the problem name
+     * @param version     the new version, or null to drop unconditionally
+     */
+    public synchronized void invalidate(String problemName, String version) {
+        CachedEntry cached = entries.get(problemName);
+        if (cached != null && (version == null || !version.equals(cached.data.getVersion()))) {
+            entries.remove(problemName);
+            totalBytes -= cached.data.getSizeBytes();
+            log.info("Invalidated cached test cases for {}", problemName);
+        }
+    }
+
+    /**
+     * Handles "problemName:version" messages published by the loader when a problem's tests change.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof String update)) {
+            return;
+        }
+        int separator = update.lastIndexOf(':');
+        if (separator < 0) {
+            invalidate(update, null);
+        } else {
+            invalidate(update.substring(0, separator), update.substring(separator + 1));
+        }
+    }
+
+    /**
+     * @return number of problems currently cached
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return approximate bytes held by the cache
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized CachedEntry lookup(String problemName) {
+        return entries.get(problemName);
+    }
+
+    private synchronized void store(ProblemTestData data) {
+        if (data.getSizeBytes() > maxBytes) {
+            log.debug("Test data of {} exceeds the cache size, not caching it", data.getProblemName());
+            return;
+        }
+
+        CachedEntry previous = entries.put(data.getProblemName(), new CachedEntry(data));
+        if (previous != null) {
+            totalBytes -= previous.data.getSizeBytes();
+        }
+        totalBytes += data.getSizeBytes();
+
+        Iterator<Map.Entry<String, CachedEntry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedEntry> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().data.getSizeBytes();
+            log.debug("Evicted cached test cases for {}", eldest.getKey());
+        }
+    }
+
+    /**
+     * Fetches and decodes the inputs or outputs of the tests {@code [from, to)} with a single HMGET.
+     */
+    private List<String> fetchTests(String problemName, TestManifest manifest, boolean inputs, int from, int to) {
+        String testsKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName + ExecutorConstants.REDIS_TESTS_SUFFIX + manifest.getVersion();
+        String prefix = inputs ? ExecutorConstants.REDIS_INPUT_FIELD_PREFIX : ExecutorConstants.REDIS_OUTPUT_FIELD_PREFIX;
+        List<String> fields = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            fields.add(prefix + i);
+        }
+
+        HashOperations<String, String, byte[]> hashOperations = binaryRedisTemplate.opsForHash();
+        List<byte[]> payloads = hashOperations.multiGet(testsKey, fields);
+        int[] sizes = inputs ? manifest.getInputSizes() : manifest.getOutputSizes();
+        long[] checksums = inputs ? manifest.getInputChecksums() : manifest.getOutputChecksums();
+        List<String> values = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] payload = payloads.get(i);
+            if (payload == null) {
+                throw new IllegalStateException("Test case " + (from + i + 1) + " of " + problemName + " version "
+                        + manifest.getVersion() + " is no longer in Redis");
+            }
+            values.add(TestCaseCodec.decode(payload, sizes[from + i], checksums[from + i]));
+        }
+        return values;
+    }
+
+    private long estimateSize(TestManifest manifest) {
+        long size = 0;
+        for (int i = 0; i < manifest.getTestCount(); i++) {
+            size += manifest.getInputSizes()[i] + manifest.getOutputSizes()[i] + 2L * ENTRY_OVERHEAD_BYTES;
+        }
+        return size;
+    }
+
+    private static final class CachedEntry {
+        private final ProblemTestData data;
+        private volatile long validatedAt;
+
+        private CachedEntry(ProblemTestData data) {
+            this.data = data;
+            this.validatedAt = System.currentTimeMillis();
+        }
+    }
+}
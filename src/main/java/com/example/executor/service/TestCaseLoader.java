@@ -1,45 +1,158 @@
 package com.example.executor.service;
 
 import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.ProblemLimits;
+import com.example.executor.model.TestManifest;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.ProblemLimitsParser;
+import com.example.executor.utility.ProcessRunner;
+import com.example.executor.utility.TestCaseCodec;
 import jakarta.annotation.PostConstruct;
-import lombok.Data;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
-@Data
 public class TestCaseLoader {
 
+    // Problem directory, tests, samples, inputs/outputs
+    private static final int WATCH_DEPTH = 4;
+    private static final Duration PREVIOUS_VERSION_TTL = Duration.ofMinutes(10);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final ProcessRunner processRunner;
+    private final ExecutionMetrics executionMetrics;
 
     @Value("${basePath}")
     private String basePath;
 
+    @Getter
     private String javaPath = "/usr/bin/java";
+    @Getter
     private String javacPath = "/usr/bin/javac";
+    @Getter
     private String nodePath = "/usr/bin/node";
+    @Getter
+    private String javacVersion = "unknown";
+
+    @Value("${executor.loader.threads:4}")
+    private int loaderThreads;
+
+    @Value("${executor.loader.watch.enabled:true}")
+    private boolean watchEnabled;
 
-    public TestCaseLoader(RedisTemplate<String, Object> redisTemplate) {
+    @Value("${executor.loader.watch.debounce-ms:500}")
+    private long watchDebounceMillis;
+
+    @Getter
+    private final AtomicInteger loadedProblems = new AtomicInteger();
+    @Getter
+    private final AtomicInteger unchangedProblems = new AtomicInteger();
+    @Getter
+    private final AtomicInteger failedProblems = new AtomicInteger();
+    private volatile boolean initialLoadComplete;
+    private ExecutorService loaderPool;
+    // Last scheduled reload of each problem with a reload in flight
+    private final Map<String, CompletableFuture<Void>> problemReloads = new ConcurrentHashMap<>();
+    // Problems whose current tests are in Redis
+    private final Set<String> knownProblems = ConcurrentHashMap.newKeySet();
+    private volatile WatchService watchService;
+
+    public TestCaseLoader(RedisTemplate<String, Object> redisTemplate, RedisTemplate<String, byte[]> binaryRedisTemplate,
+                          ProcessRunner processRunner, ExecutionMetrics executionMetrics) {
         this.redisTemplate = redisTemplate;
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.processRunner = processRunner;
+        this.executionMetrics = executionMetrics;
     }
 
     @PostConstruct
     public void initialize() {
         detectExecutablePaths();
-        loadTestCasesIntoRedis();
+        executionMetrics.setKnownProblems(this::isKnownProblem);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        loaderPool = Executors.newFixedThreadPool(Math.max(1, loaderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "test-case-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Load in the background so startup does not grow with the problem bank; readiness is reported by
+        // TestCaseLoaderHealthIndicator
+        Thread loader = new Thread(() -> {
+            // The watcher is registered first, so changes made while the initial load runs are picked up after it
+            boolean watching = watchEnabled && startWatching();
+            loadTestCasesIntoRedis();
+            if (watching) {
+                watchForChanges();
+            }
+        }, "test-case-watcher");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (loaderPool != null) {
+            loaderPool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true once every problem present at startup has been checked and, if needed, loaded
+     */
+    public boolean isInitialLoadComplete() {
+        return initialLoadComplete;
+    }
+
+    /**
+     * @param problemName problem name as sent with a submission
+     * @return true if the problem's tests have been loaded into Redis
+     */
+    public boolean isKnownProblem(String problemName) {
+        return knownProblems.contains(problemName);
     }
 
     private void detectExecutablePaths() {
@@ -47,6 +160,8 @@ public class TestCaseLoader {
             javaPath = detectExecutablePath("java", javaPath);
             javacPath = detectExecutablePath("javac", javacPath);
             nodePath = detectExecutablePath("node", nodePath);
+            javacVersion = runCommand(javacPath, "-version").trim();
+            log.info("Detected compiler version: {}", javacVersion);
         } catch (Exception e) {
             log.warn("Could not detect executable paths, using defaults", e);
         }
@@ -69,72 +184,315 @@ public class TestCaseLoader {
             Path resolvedPath = Paths.get(basePath).toAbsolutePath().normalize();
             log.info("Resolved test cases path: {}", resolvedPath);
 
-            Files.list(resolvedPath)
-                .filter(Files::isDirectory)
-                .forEach(this::loadProblemTestCases);
+            List<Path> problemDirs;
+            try (Stream<Path> dirs = Files.list(resolvedPath)) {
+                problemDirs = dirs.filter(Files::isDirectory).collect(Collectors.toList());
+            }
 
+            long start = System.currentTimeMillis();
+            List<Future<?>> loads = new ArrayList<>();
+            for (Path problemDir : problemDirs) {
+                loads.add(loaderPool.submit(() -> loadProblemTestCases(problemDir)));
+            }
+            for (Future<?> load : loads) {
+                load.get();
+            }
+            log.info("Checked {} problems in {} ms: {} loaded, {} unchanged, {} failed", problemDirs.size(),
+                    System.currentTimeMillis() - start, loadedProblems.get(), unchangedProblems.get(), failedProblems.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Failed to load test cases", e);
+        } finally {
+            initialLoadComplete = true;
         }
     }
 
+    /**
+     * Hashes the problem's test files and writes them to Redis only if the hash differs from the stored version.
+     */
     private void loadProblemTestCases(Path problemDir) {
         String problemName = problemDir.getFileName().toString();
         Path testsDir = problemDir.resolve(ExecutorConstants.DIR_TESTS);
+        String problemKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName;
 
-        if (!Files.exists(testsDir)) {
-            log.debug("No tests folder found for: {}", problemName);
-            return;
-        }
+        try {
+            if (!Files.exists(testsDir)) {
+                log.debug("No tests folder found for: {}", problemName);
+                return;
+            }
 
-        log.info("Loading test cases for: {}", problemName);
+            // Sample tests come first in test order, so sample runs only ever touch the leading indices
+            Path samplesDir = testsDir.resolve(ExecutorConstants.DIR_SAMPLES);
+            List<Path> testDirs = List.of(samplesDir.resolve(ExecutorConstants.DIR_INPUTS), samplesDir.resolve(ExecutorConstants.DIR_OUTPUTS),
+                    testsDir.resolve(ExecutorConstants.DIR_INPUTS), testsDir.resolve(ExecutorConstants.DIR_OUTPUTS));
+            Path limitsFile = problemDir.resolve(ExecutorConstants.PROBLEM_LIMITS_FILE);
+            String version = contentVersion(testDirs, limitsFile);
+            Object current = redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_MANIFEST_SUFFIX);
+            String previousVersion = current instanceof TestManifest manifest ? manifest.getVersion() : null;
+            if (version.equals(previousVersion)) {
+                unchangedProblems.incrementAndGet();
+                knownProblems.add(problemName);
+                log.debug("Test cases of {} are unchanged", problemName);
+                return;
+            }
 
-        try {
-            List<String> inputs = readAllFiles(testsDir.resolve(ExecutorConstants.DIR_INPUTS));
-            List<String> outputs = readAllFiles(testsDir.resolve(ExecutorConstants.DIR_OUTPUTS));
+            log.info("Loading test cases for: {}", problemName);
+            ProblemLimits limits = Files.exists(limitsFile) ? ProblemLimitsParser.parse(Files.readString(limitsFile)) : null;
+            List<Path> inputFiles = new ArrayList<>();
+            List<Path> outputFiles = new ArrayList<>();
+            int sampleCount = collectTestFiles(problemName, testDirs.get(0), testDirs.get(1), inputFiles, outputFiles);
+            collectTestFiles(problemName, testDirs.get(2), testDirs.get(3), inputFiles, outputFiles);
+            int testCount = inputFiles.size();
+            TestManifest manifest = new TestManifest(version, testCount, sampleCount, new int[testCount], new int[testCount],
+                    new long[testCount], new long[testCount], limits);
+
+            // The tests of a version go first, so a manifest is never visible before its tests
+            String testsKey = problemKey + ExecutorConstants.REDIS_TESTS_SUFFIX + version;
+            binaryRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    // The operations are binaryRedisTemplate's own, only typed generically by SessionCallback
+                    @SuppressWarnings("unchecked")
+                    RedisOperations<String, byte[]> redis = (RedisOperations<String, byte[]>) operations;
+                    // The same version may still be expiring after a revert (A -> B -> A) or a delete and restore;
+                    // drop that TTL first so it cannot expire under or after the writes below
+                    redis.persist(testsKey);
+                    HashOperations<String, String, byte[]> tests = redis.opsForHash();
+                    for (int i = 0; i < testCount; i++) {
+                        byte[] input = readBytes(inputFiles.get(i));
+                        byte[] output = readBytes(outputFiles.get(i));
+                        manifest.getInputSizes()[i] = input.length;
+                        manifest.getOutputSizes()[i] = output.length;
+                        manifest.getInputChecksums()[i] = TestCaseCodec.checksum(input);
+                        manifest.getOutputChecksums()[i] = TestCaseCodec.checksum(output);
+                        tests.put(testsKey, ExecutorConstants.REDIS_INPUT_FIELD_PREFIX + i, TestCaseCodec.compress(input));
+                        tests.put(testsKey, ExecutorConstants.REDIS_OUTPUT_FIELD_PREFIX + i, TestCaseCodec.compress(output));
+                    }
+                    return null;
+                }
+            });
 
-            String inputKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName + ExecutorConstants.REDIS_INPUTS_SUFFIX;
-            String outputKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName + ExecutorConstants.REDIS_OUTPUTS_SUFFIX;
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    // The operations are redisTemplate's own, only typed generically by SessionCallback
+                    @SuppressWarnings("unchecked")
+                    RedisOperations<String, Object> redis = (RedisOperations<String, Object>) operations;
+                    redis.opsForValue().set(problemKey + ExecutorConstants.REDIS_MANIFEST_SUFFIX, manifest);
+                    redis.opsForValue().set(problemKey + ExecutorConstants.REDIS_VERSION_SUFFIX, version);
+                    // Whole-list keys of the layout before per-test storage
+                    redis.delete(List.of(problemKey + ExecutorConstants.REDIS_INPUTS_SUFFIX,
+                            problemKey + ExecutorConstants.REDIS_OUTPUTS_SUFFIX));
+                    // Runs that started on the previous version may still be fetching its tests
+                    if (previousVersion != null) {
+                        redis.expire(problemKey + ExecutorConstants.REDIS_TESTS_SUFFIX + previousVersion, PREVIOUS_VERSION_TTL);
+                    }
+                    return null;
+                }
+            });
+
+            // Executors drop their node-local copy if it has a different version
+            redisTemplate.convertAndSend(ExecutorConstants.REDIS_CHANNEL_PROBLEM_UPDATES, problemName + ":" + version);
+
+            knownProblems.add(problemName);
+            loadedProblems.incrementAndGet();
+            log.info("Loaded {} ({} test cases, {} samples{}) into Redis", problemName, testCount, sampleCount,
+                    limits == null ? "" : ", own limits");
+        } catch (Exception e) {
+            failedProblems.incrementAndGet();
+            log.error("Error loading test cases for {}", problemName, e);
+        }
+    }
 
-            redisTemplate.opsForValue().set(inputKey, inputs);
-            redisTemplate.opsForValue().set(outputKey, outputs);
+    /**
+     * Removes a deleted problem from Redis and tells executors to drop their copy.
+     */
+    private void unloadProblemTestCases(String problemName) {
+        String problemKey = ExecutorConstants.REDIS_PROBLEM_PREFIX + problemName;
+        try {
+            Object current = redisTemplate.opsForValue().get(problemKey + ExecutorConstants.REDIS_MANIFEST_SUFFIX);
+            redisTemplate.delete(List.of(problemKey + ExecutorConstants.REDIS_MANIFEST_SUFFIX,
+                    problemKey + ExecutorConstants.REDIS_VERSION_SUFFIX, problemKey + ExecutorConstants.REDIS_INPUTS_SUFFIX,
+                    problemKey + ExecutorConstants.REDIS_OUTPUTS_SUFFIX));
+            if (current instanceof TestManifest manifest) {
+                redisTemplate.expire(problemKey + ExecutorConstants.REDIS_TESTS_SUFFIX + manifest.getVersion(), PREVIOUS_VERSION_TTL);
+            }
+            redisTemplate.convertAndSend(ExecutorConstants.REDIS_CHANNEL_PROBLEM_UPDATES, problemName);
+            knownProblems.remove(problemName);
+            log.info("Removed test cases of deleted problem {}", problemName);
+        } catch (Exception e) {
+            log.error("Error removing test cases for {}", problemName, e);
+        }
+    }
 
-            log.info("Loaded {} ({} test cases) into Redis", problemName, inputs.size());
+    /**
+     * Registers the watch service on the problem directories; events queue up until {@link #watchForChanges()} runs.
+     *
+     * @return true if the directories are watched
+     */
+    private boolean startWatching() {
+        Path root = Paths.get(basePath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            return false;
+        }
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            registerTree(root);
+            log.info("Watching {} for test case changes", root);
+            return true;
         } catch (IOException e) {
-            log.error("Error reading test cases for {}", problemName, e);
+            log.error("Could not watch {} for test case changes", root, e);
+            return false;
         }
     }
 
-    private List<String> readAllFiles(Path dirPath) throws IOException {
-        if (!Files.exists(dirPath)) {
-            return List.of();
+    /**
+     * Reloads only the problems whose files changed, until shutdown.
+     * Events are collected for a short debounce window so copying a whole problem triggers a single reload.
+     */
+    private void watchForChanges() {
+        Path root = Paths.get(basePath).toAbsolutePath().normalize();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> changed = new HashSet<>();
+                collectChanges(root, key, changed);
+                // Debounce: gather everything that arrives shortly after the first event
+                while ((key = watchService.poll(watchDebounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collectChanges(root, key, changed);
+                }
+
+                for (String problemName : changed) {
+                    Path problemDir = root.resolve(problemName);
+                    if (Files.isDirectory(problemDir)) {
+                        registerTree(problemDir);
+                        scheduleReload(problemName, () -> loadProblemTestCases(problemDir));
+                    } else {
+                        scheduleReload(problemName, () -> unloadProblemTestCases(problemName));
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (IOException e) {
+            log.error("Stopped watching {} for test case changes", root, e);
         }
+    }
 
-        return Files.list(dirPath)
-            .filter(Files::isRegularFile).sorted().map(path -> {
-                try {
-                    return Files.readString(path, StandardCharsets.UTF_8);
+    /**
+     * Runs a reload once every earlier reload of the same problem has finished. Loads of one problem never
+     * overlap, so an older version can never publish its manifest after a newer one or expire the newer tests.
+     */
+    private void scheduleReload(String problemName, Runnable reload) {
+        CompletableFuture<Void> scheduled = problemReloads.compute(problemName, (name, previous) -> previous == null
+                ? CompletableFuture.runAsync(reload, loaderPool)
+                : previous.exceptionally(e -> null).thenRunAsync(reload, loaderPool));
+        scheduled.whenComplete((ignored, e) -> problemReloads.remove(problemName, scheduled));
+    }
+
+    private void collectChanges(Path root, WatchKey key, Set<String> changed) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; re-check every problem, unchanged ones are skipped by their hash
+                try (Stream<Path> dirs = Files.list(root)) {
+                    dirs.filter(Files::isDirectory).forEach(problemDir -> changed.add(problemDir.getFileName().toString()));
                 } catch (IOException e) {
-                    throw new RuntimeException(e);
+                    log.warn("Failed to list {}: {}", root, e.getMessage());
                 }
-            })
-            .collect(Collectors.toList());
+                continue;
+            }
+            Path changedPath = dir.resolve((Path) event.context());
+            Path relative = root.relativize(changedPath);
+            if (relative.getNameCount() > 0 && !relative.toString().isEmpty()) {
+                changed.add(relative.getName(0).toString());
+            }
+        }
+        key.reset();
     }
 
-    private String runCommand(String... command) throws IOException, InterruptedException {
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
-
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> dirs = Files.walk(dir, WATCH_DEPTH)) {
+            for (Path watched : dirs.filter(Files::isDirectory).collect(Collectors.toList())) {
+                watched.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+    }
+
+    /**
+     * Adds the complete test cases of one partition, pairing inputs and outputs in file name order.
+     *
+     * @return number of test cases added
+     */
+    private int collectTestFiles(String problemName, Path inputsDir, Path outputsDir, List<Path> inputFiles,
+                                 List<Path> outputFiles) throws IOException {
+        List<Path> inputs = listFiles(inputsDir);
+        List<Path> outputs = listFiles(outputsDir);
+        if (inputs.size() != outputs.size()) {
+            log.warn("{} has {} inputs but {} outputs in {}, loading only complete test cases", problemName,
+                    inputs.size(), outputs.size(), inputsDir.getParent());
+        }
+        int count = Math.min(inputs.size(), outputs.size());
+        inputFiles.addAll(inputs.subList(0, count));
+        outputFiles.addAll(outputs.subList(0, count));
+        return count;
+    }
+
+    /**
+     * Version stamp of a problem's test data: a short hash of all input and output files and of the limits file,
+     * streamed from disk so unchanged problems are never read into memory.
+     * Problems without a limits file keep the version they had before limits existed.
+     */
+    private String contentVersion(List<Path> testDirs, Path limitsFile) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            for (Path dir : testDirs) {
+                for (Path file : listFiles(dir)) {
+                    digestFile(digest, file, buffer);
+                    digest.update((byte) 0);
+                }
+                digest.update((byte) 1);
+            }
+            if (Files.isRegularFile(limitsFile)) {
+                digestFile(digest, limitsFile, buffer);
+                digest.update((byte) 2);
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void digestFile(MessageDigest digest, Path file, byte[] buffer) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
             }
         }
+    }
+
+    private List<Path> listFiles(Path dirPath) throws IOException {
+        if (!Files.exists(dirPath)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dirPath)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private byte[] readBytes(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        process.waitFor();
-        return output.toString();
+    private String runCommand(String... command) throws IOException, InterruptedException {
+        return processRunner.run(command).output();
     }
 }
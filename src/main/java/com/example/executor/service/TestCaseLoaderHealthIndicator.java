@@ -0,0 +1,29 @@
+package com.example.executor.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the executor out of service until the test cases present at startup are in Redis,
+ * so it is not sent traffic while problems are still loading in the background.
+ */
+@Component
+public class TestCaseLoaderHealthIndicator implements HealthIndicator {
+
+    private final TestCaseLoader testCaseLoader;
+
+    public TestCaseLoaderHealthIndicator(TestCaseLoader testCaseLoader) {
+        this.testCaseLoader = testCaseLoader;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = testCaseLoader.isInitialLoadComplete() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("loaded", testCaseLoader.getLoadedProblems().get())
+                .withDetail("unchanged", testCaseLoader.getUnchangedProblems().get())
+                .withDetail("failed", testCaseLoader.getFailedProblems().get())
+                .build();
+    }
+}
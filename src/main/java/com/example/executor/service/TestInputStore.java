@@ -0,0 +1,237 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.model.ProblemTestData;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Node-local, read-only store of test inputs, one directory per problem version.
+ * Every sandbox run mounts the version directory read-only at {@link ExecutorConstants#INPUT_STORE_SANDBOX_DIR}
+ * and reads its input from there, so no submission copies inputs into its box.
+ * Inputs are written on demand, each once, right before the first run that needs them, so tests no run
+ * reaches are never fetched from Redis.
+ */
+@Slf4j
+@Service
+public class TestInputStore {
+
+    private static final String STAGING_PREFIX = ".tmp-";
+
+    @Value("${executor.input-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${executor.input-store.dir:/var/local/lib/hackstack-inputs}")
+    private String storeDir;
+
+    @Value("${executor.input-store.versions-per-problem:2}")
+    private int versionsPerProblem;
+
+    // Version directory by problem and version; completes with null if it could not be created
+    private final Map<String, CompletableFuture<Path>> materialized = new ConcurrentHashMap<>();
+    private Path storeRoot;
+    // Staging files older than this were left behind by a crashed process; younger ones may still be written
+    private long startedMillis;
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            storeRoot = Files.createDirectories(Paths.get(storeDir).toAbsolutePath().normalize());
+            startedMillis = System.currentTimeMillis();
+            try (Stream<Path> versionDirs = Files.walk(storeRoot, 2)) {
+                versionDirs.filter(path -> storeRoot.relativize(path).getNameCount() == 2 && Files.isDirectory(path))
+                        .forEach(this::deleteStaleStaging);
+            }
+        } catch (IOException e) {
+            log.warn("Test input store unavailable at {}, inputs will be copied into each box: {}", storeDir, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * Returns the directory holding the inputs of a problem version, creating it on first use and pruning older
+     * versions of the problem. The directory starts empty, see {@link #storeInputs}.
+     * Directories written by an earlier process are reused with the inputs they already hold.
+     *
+     * @param testData the problem's test data
+     * @return the version directory, or null if the store is disabled, the data has no version or creating it failed
+     */
+    public Path materialize(ProblemTestData testData) {
+        if (!enabled || testData.getVersion() == null) {
+            return null;
+        }
+        String problemDir = sanitize(testData.getProblemName());
+        String key = problemDir + "/" + testData.getVersion();
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = materialized.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        // Only the first caller creates the directory; the others wait for it without holding a map lock
+        Path versionDir = createVersionDirectory(problemDir, testData);
+        created.complete(versionDir);
+        if (versionDir == null) {
+            materialized.remove(key, created);
+            return null;
+        }
+        pruneOldVersions(versionDir.getParent(), versionDir);
+        return versionDir;
+    }
+
+    /**
+     * Writes the inputs of the tests {@code [from, to)} that are not in the version directory yet,
+     * fetching them from the test data. Each file appears atomically and is never written again.
+     *
+     * @param versionDir directory returned by {@link #materialize}
+     * @param testData   the problem's test data
+     * @param from       first test index (inclusive)
+     * @param to         last test index (exclusive)
+     * @return true if all the inputs are in the store, false if writing one failed
+     */
+    public boolean storeInputs(Path versionDir, ProblemTestData testData, int from, int to) {
+        int written = 0;
+        try {
+            for (int i = from; i < to; i++) {
+                Path inputFile = versionDir.resolve(inputFileName(i));
+                if (Files.exists(inputFile)) {
+                    continue;
+                }
+                Path staging = versionDir.resolve(STAGING_PREFIX + UUID.randomUUID());
+                try {
+                    Files.writeString(staging, testData.getInput(i));
+                    // Readable by the sandbox user, writable by nobody
+                    staging.toFile().setWritable(false, false);
+                    staging.toFile().setReadable(true, false);
+                    // Replaces a file another run wrote concurrently, which has the same content
+                    Files.move(staging, inputFile, StandardCopyOption.ATOMIC_MOVE);
+                    written++;
+                } finally {
+                    Files.deleteIfExists(staging);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store test inputs of {}: {}", testData.getProblemName(), e.getMessage());
+            return false;
+        }
+        if (written > 0) {
+            log.debug("Stored {} test inputs of {} version {}", written, testData.getProblemName(), testData.getVersion());
+        }
+        return true;
+    }
+
+    /**
+     * Name of the file holding a test input, inside the store directory or the box.
+     *
+     * @param index test index
+     * @return the input file name
+     */
+    public String inputFileName(int index) {
+        return ExecutorConstants.HARNESS_INPUT_PREFIX + index + ExecutorConstants.HARNESS_FILE_SUFFIX;
+    }
+
+    /**
+     * Isolate option mounting a version directory read-only into the sandbox.
+     *
+     * @param versionDir directory returned by {@link #materialize}
+     * @return the {@code --dir} option
+     */
+    public String isolateDirectory(Path versionDir) {
+        return "--dir=" + ExecutorConstants.INPUT_STORE_SANDBOX_DIR + "=" + versionDir;
+    }
+
+    private Path createVersionDirectory(String problemDir, ProblemTestData testData) {
+        Path versionDir = storeRoot.resolve(problemDir).resolve(testData.getVersion());
+        try {
+            Files.createDirectories(versionDir);
+            // Listable by the sandbox user; only the executor writes into it
+            versionDir.toFile().setReadable(true, false);
+            versionDir.toFile().setExecutable(true, false);
+            return versionDir;
+        } catch (IOException e) {
+            log.warn("Failed to create test input directory of {}: {}", testData.getProblemName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the newest versions of a problem; older ones only linger if a run of an outdated submission
+     * still needs them, which the version count bounds in practice.
+     */
+    private void pruneOldVersions(Path problemPath, Path current) {
+        deleteStaleStaging(current);
+        try (Stream<Path> versions = Files.list(problemPath)) {
+            List<Path> old = versions
+                    .filter(path -> !path.equals(current) && !path.getFileName().toString().startsWith(STAGING_PREFIX))
+                    .sorted(Comparator.comparing(this::lastModified).reversed())
+                    .skip(Math.max(0, versionsPerProblem - 1))
+                    .collect(Collectors.toList());
+            for (Path version : old) {
+                materialized.values().removeIf(created -> version.equals(created.getNow(null)));
+                deleteDirectory(version);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to prune old test inputs in {}: {}", problemPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes staging files a crashed process left in a version directory.
+     */
+    private void deleteStaleStaging(Path versionDir) {
+        try (Stream<Path> files = Files.list(versionDir)) {
+            List<Path> stale = files
+                    .filter(path -> path.getFileName().toString().startsWith(STAGING_PREFIX))
+                    .filter(path -> lastModified(path).toMillis() < startedMillis)
+                    .collect(Collectors.toList());
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete stale staging files in {}: {}", versionDir, e.getMessage());
+        }
+    }
+
+    private String sanitize(String problemName) {
+        return problemName.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteDirectory(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", dir, e.getMessage());
+        }
+    }
+}
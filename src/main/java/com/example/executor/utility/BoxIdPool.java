@@ -1,55 +1,141 @@
 package com.example.executor.utility;
 
 import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.BoxState;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
- * Thread-safe pool for managing isolate box IDs.
- * Ensures no two concurrent executions use the same box ID.
+ * Thread-safe, lifecycle-aware pool of isolate boxes.
+ * Ensures no two concurrent executions use the same box ID, hands out boxes that are already
+ * initialized, and cleans up and re-initializes released boxes in the background so neither
+ * step sits on an execution's critical path. Boxes whose cleanup fails are quarantined.
  */
 @Slf4j
 @Component
 public class BoxIdPool {
 
-    private final BlockingQueue<String> availableBoxIds;
+    // Initialized boxes are kept at the head, uninitialized ones at the tail
+    private final BlockingDeque<String> availableBoxIds;
+    private final Map<String, BoxState> states = new ConcurrentHashMap<>();
+    private ExecutorService cleaner;
 
-    public BoxIdPool() {
-        availableBoxIds = new LinkedBlockingQueue<>();
+    @Value("${executor.box-pool.warm-size:8}")
+    private int warmSize;
+
+    @Value("${executor.box-pool.cleanup-threads:2}")
+    private int cleanupThreads;
+
+    @Value("${executor.isolate.path:isolate}")
+    private String isolatePath;
+
+    private final ExecutionMetrics executionMetrics;
+    private final ProcessRunner processRunner;
+
+    public BoxIdPool(ExecutionMetrics executionMetrics, ProcessRunner processRunner) {
+        this.executionMetrics = executionMetrics;
+        this.processRunner = processRunner;
+        availableBoxIds = new LinkedBlockingDeque<>();
         // Initialize pool with all available box IDs
         for (int i = 0; i < ExecutorConstants.MAX_BOX_ID; i++) {
-            availableBoxIds.offer(String.valueOf(i));
+            String boxId = String.valueOf(i);
+            states.put(boxId, BoxState.IDLE);
+            availableBoxIds.offerLast(boxId);
         }
         log.info("Initialized BoxIdPool with {} box IDs", ExecutorConstants.MAX_BOX_ID);
+
+        executionMetrics.gauge("executor.box_pool.available", "Boxes ready to be acquired", this::getAvailableCount);
+        executionMetrics.gauge("executor.box_pool.quarantined", "Boxes taken out of rotation after a failed cleanup",
+                () -> getStateCounts().get(BoxState.QUARANTINED));
+    }
+
+    @PostConstruct
+    public void initialize() {
+        AtomicInteger threadCount = new AtomicInteger();
+        cleaner = Executors.newFixedThreadPool(Math.max(1, cleanupThreads), runnable -> {
+            Thread thread = new Thread(runnable, "box-cleaner-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Pre-initialize the first boxes so the first executions find them warm
+        for (int i = 0; i < Math.min(warmSize, ExecutorConstants.MAX_BOX_ID); i++) {
+            String boxId = String.valueOf(i);
+            if (availableBoxIds.remove(boxId)) {
+                states.put(boxId, BoxState.CLEANING);
+                // Leftovers from a previous run may or may not exist, so a failed cleanup is not fatal here
+                cleaner.submit(() -> recycle(boxId, false));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
     }
 
     /**
-     * Acquire a box ID from the pool.
+     * Acquire an initialized box from the pool.
      * Blocks if no box IDs are available until one is returned.
      *
      * @return an available box ID
      * @throws InterruptedException if interrupted while waiting
      */
     public String acquire() throws InterruptedException {
-        String boxId = availableBoxIds.poll(30, TimeUnit.SECONDS);
-        if (boxId == null) {
-            throw new RuntimeException("Timeout waiting for available box ID - all boxes busy");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            String boxId = availableBoxIds.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (boxId == null) {
+                throw new RuntimeException("Timeout waiting for available box ID - all boxes busy");
+            }
+            if (handOut(boxId)) {
+                return boxId;
+            }
+        }
+    }
+
+    /**
+     * Acquire an initialized box only if one is free right now.
+     *
+     * @return an available box ID, or null if all boxes are busy
+     */
+    public String tryAcquire() {
+        while (true) {
+            String boxId = availableBoxIds.pollFirst();
+            if (boxId == null || handOut(boxId)) {
+                return boxId;
+            }
         }
-        log.debug("Acquired box ID: {}", boxId);
-        return boxId;
     }
 
     /**
-     * Release a box ID back to the pool for reuse.
+     * Release a box back to the pool. It is cleaned up and re-initialized in the background
+     * before it can be acquired again.
      *
      * @param boxId the box ID to return
      */
     public void release(String boxId) {
-        availableBoxIds.offer(boxId);
+        states.put(boxId, BoxState.CLEANING);
+        cleaner.submit(() -> recycle(boxId, true));
         log.debug("Released box ID: {}", boxId);
     }
 
@@ -61,4 +147,110 @@ public class BoxIdPool {
     public int getAvailableCount() {
         return availableBoxIds.size();
     }
+
+    /**
+     * Get the total number of boxes managed by the pool.
+     *
+     * @return pool size
+     */
+    public int getSize() {
+        return states.size();
+    }
+
+    /**
+     * Get the number of boxes in each lifecycle state.
+     *
+     * @return box count per state
+     */
+    public Map<BoxState, Integer> getStateCounts() {
+        Map<BoxState, Integer> counts = new EnumMap<>(BoxState.class);
+        for (BoxState state : BoxState.values()) {
+            counts.put(state, 0);
+        }
+        states.values().forEach(state -> counts.merge(state, 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * Get the IDs of boxes taken out of rotation because their cleanup failed.
+     *
+     * @return quarantined box IDs
+     */
+    public List<String> getQuarantinedBoxIds() {
+        return states.entrySet().stream()
+                .filter(entry -> entry.getValue() == BoxState.QUARANTINED)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Put a quarantined box back through cleanup, e.g. after an operator fixed the host.
+     *
+     * @param boxId the quarantined box ID
+     */
+    public void retryQuarantined(String boxId) {
+        if (states.replace(boxId, BoxState.QUARANTINED, BoxState.CLEANING)) {
+            cleaner.submit(() -> recycle(boxId, true));
+        }
+    }
+
+    /**
+     * Marks a box taken from the available queue as in use, initializing it first if it is not warm.
+     * A box that fails to initialize is quarantined like one whose cleanup failed.
+     *
+     * @return false if the box was quarantined and the caller should take another one
+     */
+    private boolean handOut(String boxId) {
+        // Cold path: the box has not been initialized yet (pool is not warm)
+        if (states.get(boxId) == BoxState.IDLE && !runIsolate(boxId, "--init")) {
+            states.put(boxId, BoxState.QUARANTINED);
+            log.error("Initialization of box {} failed on acquire, quarantining it", boxId);
+            return false;
+        }
+        states.put(boxId, BoxState.IN_USE);
+        log.debug("Acquired box ID: {}", boxId);
+        return true;
+    }
+
+    private void recycle(String boxId, boolean quarantineOnFailure) {
+        Timer.Sample sample = executionMetrics.startPhase();
+        try {
+            recycleBox(boxId, quarantineOnFailure);
+        } finally {
+            executionMetrics.stopPhase(sample, ExecutionMetrics.PHASE_CLEANUP, null, null);
+        }
+    }
+
+    private void recycleBox(String boxId, boolean quarantineOnFailure) {
+        if (!runIsolate(boxId, "--cleanup") && quarantineOnFailure) {
+            states.put(boxId, BoxState.QUARANTINED);
+            log.error("Cleanup of box {} failed, quarantining it", boxId);
+            return;
+        }
+
+        if (runIsolate(boxId, "--init")) {
+            states.put(boxId, BoxState.READY);
+            availableBoxIds.offerFirst(boxId);
+        } else {
+            states.put(boxId, BoxState.IDLE);
+            availableBoxIds.offerLast(boxId);
+        }
+    }
+
+    private boolean runIsolate(String boxId, String action) {
+        try {
+            ProcessRunner.Result result = processRunner.run(isolatePath, "--box-id=" + boxId, action);
+            if (!result.succeeded()) {
+                log.warn("isolate {} for box {} exited with {}: {}", action, boxId, result.exitCode(), result.stderrText().trim());
+            }
+            return result.succeeded();
+        } catch (IOException e) {
+            log.warn("Failed to run isolate {} for box {}: {}", action, boxId, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.executor.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Finds field references in the constant pool of a compiled class, without loading the class.
+ * Only the constant pool is read: every field a class reads or writes is named there, whatever the method body.
+ */
+public final class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int FLOAT = 4;
+    private static final int LONG = 5;
+    private static final int DOUBLE = 6;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD_REF = 9;
+    private static final int METHOD_REF = 10;
+    private static final int INTERFACE_METHOD_REF = 11;
+    private static final int NAME_AND_TYPE = 12;
+    private static final int METHOD_HANDLE = 15;
+    private static final int METHOD_TYPE = 16;
+    private static final int DYNAMIC = 17;
+    private static final int INVOKE_DYNAMIC = 18;
+    private static final int MODULE = 19;
+    private static final int PACKAGE = 20;
+
+    private ClassFileScanner() {
+    }
+
+    /**
+     * Checks whether a class references one of the given fields of another class.
+     *
+     * @param classFile the class file bytes
+     * @param owner     internal name of the class declaring the fields, e.g. {@code java/io/FileDescriptor}
+     * @param names     the field names
+     * @return true if the constant pool holds a reference to any of the fields
+     * @throws IllegalArgumentException if the bytes are not a well-formed class file
+     */
+    public static boolean referencesField(byte[] classFile, String owner, Set<String> names) {
+        try {
+            return scan(ByteBuffer.wrap(classFile), owner, names);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed class file", e);
+        }
+    }
+
+    private static boolean scan(ByteBuffer in, String owner, Set<String> names) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        in.getInt();    // minor and major version
+
+        int count = Short.toUnsignedInt(in.getShort());
+        String[] utf8 = new String[count];
+        int[] first = new int[count];    // Class: name; Field_ref: class; Name_and_type: name
+        int[] second = new int[count];   // Field_ref: name and type
+        int[] tags = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            tags[i] = Byte.toUnsignedInt(in.get());
+            switch (tags[i]) {
+                case UTF8 -> {
+                    byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+                    in.get(bytes);
+                    // Modified UTF-8 only differs from UTF-8 for characters that never occur in the names we look for
+                    utf8[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                case CLASS, NAME_AND_TYPE, FIELD_REF -> {
+                    first[i] = Short.toUnsignedInt(in.getShort());
+                    if (tags[i] != CLASS) {
+                        second[i] = Short.toUnsignedInt(in.getShort());
+                    }
+                }
+                case STRING, METHOD_TYPE, MODULE, PACKAGE -> in.getShort();
+                case INTEGER, FLOAT, METHOD_REF, INTERFACE_METHOD_REF, DYNAMIC, INVOKE_DYNAMIC -> in.getInt();
+                case METHOD_HANDLE -> {
+                    in.get();
+                    in.getShort();
+                }
+                case LONG, DOUBLE -> {
+                    in.getLong();
+                    i++;    // Takes two constant pool slots
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tags[i]);
+            }
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (tags[i] == FIELD_REF
+                    && owner.equals(utf8[first[first[i]]])
+                    && names.contains(utf8[first[second[i]]])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.executor.utility;
+
+import com.example.executor.constants.ExecutorConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many boxes execute at once and adapts the limit to the host (AIMD). Every executing submission
+ * takes a slot for its primary box; extra shard boxes take free slots when there are any, so sharding never
+ * runs more boxes than the limit.
+ * Every interval it samples CPU and memory pressure (PSI), the memory still available, and the recent peak
+ * memory of a box as reported by isolate. Pressure above the thresholds, or too little memory for another box
+ * at the recent peak, cuts the limit multiplicatively; otherwise, while submissions are waiting for the limit,
+ * it grows by one. Without PSI (older kernels, other platforms) only the memory check applies.
+ * With a memory budget, admission also counts the isolate memory limits of the boxes in use (primary and shard
+ * boxes): problems with small limits then run more boxes at once than a worst-case execution limit would allow.
+ */
+@Slf4j
+@Component
+public class ConcurrencyController {
+
+    static final String INCREASE = "increase";
+    static final String DECREASE = "decrease";
+    static final String HOLD = "hold";
+
+    private static final String CGROUP_DIR = "/sys/fs/cgroup";
+
+    private final ExecutionMetrics executionMetrics;
+
+    @Value("${executor.concurrency.adaptive.enabled:true}")
+    private boolean adaptive;
+
+    @Value("${executor.pipeline.max-concurrency:8}")
+    private int initialLimit;
+
+    @Value("${executor.concurrency.min:1}")
+    private int minLimit;
+
+    @Value("${executor.concurrency.max:32}")
+    private int maxLimit;
+
+    @Value("${executor.concurrency.interval-ms:1000}")
+    private long intervalMillis;
+
+    @Value("${executor.concurrency.cpu-pressure-threshold:25}")
+    private double cpuPressureThreshold;
+
+    @Value("${executor.concurrency.memory-pressure-threshold:5}")
+    private double memoryPressureThreshold;
+
+    @Value("${executor.concurrency.memory-reserve-mb:512}")
+    private double memoryReserveMb;
+
+    @Value("${executor.concurrency.decrease-factor:0.75}")
+    private double decreaseFactor;
+
+    @Value("${executor.concurrency.psi-dir:/proc/pressure}")
+    private String psiDir;
+
+    @Value("${executor.concurrency.memory-budget-mb:0}")
+    private long memoryBudgetMb;
+
+    private final Object lock = new Object();
+    private int limit;
+    private int running;
+    private int waiting;
+    private long reservedKb;
+
+    private volatile Sample lastSample = new Sample(0, 0, Double.NaN, 0);
+    private ScheduledExecutorService sampler;
+
+    /**
+     * One reading of the host.
+     *
+     * @param cpuPressure      share of time some task waited for CPU over the last 10 s, in percent
+     * @param memoryPressure   share of time some task stalled on memory over the last 10 s, in percent
+     * @param availableMemoryMb memory still available, NaN if unknown
+     * @param peakBoxMemoryMb  recent peak memory of a single box
+     */
+    record Sample(double cpuPressure, double memoryPressure, double availableMemoryMb, double peakBoxMemoryMb) {
+    }
+
+    /**
+     * Outcome of one control step.
+     */
+    record Decision(int limit, String action, String reason) {
+    }
+
+    public ConcurrencyController(ExecutionMetrics executionMetrics) {
+        this.executionMetrics = executionMetrics;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // Boxes are also needed for shards, so the limit never claims the whole pool
+        maxLimit = Math.max(1, Math.min(maxLimit, ExecutorConstants.MAX_BOX_ID / 2));
+        minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+
+        executionMetrics.gauge("executor.concurrency.limit", "Submissions allowed to execute at once", this::getLimit);
+        executionMetrics.gauge("executor.concurrency.cpu_pressure", "CPU pressure (PSI some avg10) seen by the controller",
+                () -> lastSample.cpuPressure());
+        executionMetrics.gauge("executor.concurrency.memory_pressure", "Memory pressure (PSI some avg10) seen by the controller",
+                () -> lastSample.memoryPressure());
+        executionMetrics.gauge("executor.concurrency.box_peak_memory", "Recent peak memory of a box in megabytes",
+                () -> lastSample.peakBoxMemoryMb());
+        executionMetrics.gauge("executor.concurrency.reserved_memory", "Memory limits of the boxes in use in megabytes",
+                () -> getReservedKb() / 1024.0);
+
+        if (!adaptive) {
+            log.info("Adaptive concurrency disabled, executing up to {} submissions at once{}", limit, budgetDescription());
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "concurrency-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::adjust, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Adaptive concurrency enabled, limit {} within [{}, {}]{}", limit, minLimit, maxLimit, budgetDescription());
+    }
+
+    private String budgetDescription() {
+        return memoryBudgetMb > 0 ? ", box memory limits within " + memoryBudgetMb + " MB" : "";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits until one more submission may execute and its box's memory limit fits the budget.
+     *
+     * @param memoryKb memory limit of the submission's box
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long memoryKb) throws InterruptedException {
+        synchronized (lock) {
+            waiting++;
+            try {
+                while (running >= limit || !fits(memoryKb)) {
+                    lock.wait();
+                }
+            } finally {
+                waiting--;
+            }
+            running++;
+            reservedKb += memoryKb;
+        }
+    }
+
+    /**
+     * Marks a box acquired with {@link #acquire(long)} or {@link #tryAcquire(long)} as finished.
+     *
+     * @param memoryKb the memory limit it was acquired with
+     */
+    public void release(long memoryKb) {
+        synchronized (lock) {
+            running--;
+            reservedKb -= memoryKb;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Takes a slot for an extra box of a running submission, without waiting. Submissions waiting for a slot
+     * come first, so shards only ever use capacity nothing else is asking for.
+     *
+     * @param memoryKb memory limit of the box
+     * @return true if a slot was free and the box fits the budget; return it with {@link #release(long)}
+     */
+    public boolean tryAcquire(long memoryKb) {
+        synchronized (lock) {
+            if (waiting > 0 || running >= limit || (memoryBudgetMb > 0 && reservedKb + memoryKb > memoryBudgetMb * 1024)) {
+                return false;
+            }
+            running++;
+            reservedKb += memoryKb;
+            return true;
+        }
+    }
+
+    /**
+     * @return memory limits of the boxes in use, in kilobytes
+     */
+    public long getReservedKb() {
+        synchronized (lock) {
+            return reservedKb;
+        }
+    }
+
+    /**
+     * @return boxes currently holding a slot, primary and shard boxes
+     */
+    public int getRunning() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * @return the current limit
+     */
+    public int getLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    /**
+     * A box always fits when nothing is reserved, so a limit above the budget cannot wait forever.
+     */
+    private boolean fits(long memoryKb) {
+        return memoryBudgetMb <= 0 || reservedKb == 0 || reservedKb + memoryKb <= memoryBudgetMb * 1024;
+    }
+
+    private void adjust() {
+        try {
+            Sample sample = sample();
+            lastSample = sample;
+            Decision decision;
+            synchronized (lock) {
+                // Submissions held back only by the memory budget are no reason to raise the limit
+                decision = decide(limit, waiting > 0 && running >= limit, sample);
+                if (decision.limit() != limit) {
+                    log.info("Concurrency limit {} -> {} ({})", limit, decision.limit(), decision.reason());
+                    limit = decision.limit();
+                    lock.notifyAll();
+                }
+            }
+            executionMetrics.countConcurrencyDecision(decision.action(), decision.reason());
+        } catch (Exception e) {
+            log.warn("Concurrency adjustment failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One AIMD step.
+     *
+     * @param current current limit
+     * @param demand  true if submissions are waiting for the limit
+     * @param sample  the host reading
+     * @return the new limit and why
+     */
+    Decision decide(int current, boolean demand, Sample sample) {
+        String pressure = null;
+        if (sample.memoryPressure() > memoryPressureThreshold) {
+            pressure = "memory-pressure";
+        } else if (sample.cpuPressure() > cpuPressureThreshold) {
+            pressure = "cpu-pressure";
+        } else if (!Double.isNaN(sample.availableMemoryMb()) && sample.availableMemoryMb() < memoryReserveMb) {
+            pressure = "memory-available";
+        }
+        if (pressure != null) {
+            int decreased = Math.max(minLimit, (int) Math.floor(current * decreaseFactor));
+            return decreased < current ? new Decision(decreased, DECREASE, pressure) : new Decision(current, HOLD, pressure);
+        }
+
+        if (!demand) {
+            return new Decision(current, HOLD, "idle");
+        }
+        if (current >= maxLimit) {
+            return new Decision(current, HOLD, "max");
+        }
+        // Another box at the recent peak has to fit next to the reserve
+        if (!Double.isNaN(sample.availableMemoryMb())
+                && sample.availableMemoryMb() - sample.peakBoxMemoryMb() < memoryReserveMb) {
+            return new Decision(current, HOLD, "memory-headroom");
+        }
+        return new Decision(current + 1, INCREASE, "demand");
+    }
+
+    private Sample sample() {
+        return new Sample(readPressure("cpu"), readPressure("memory"), readAvailableMemoryMb(),
+                executionMetrics.recentPeakSandboxMemory());
+    }
+
+    /**
+     * Reads {@code some avg10} of a PSI file, 0 if PSI is unavailable.
+     * Accepts both the host layout ({@code /proc/pressure/cpu}) and the cgroup v2 one ({@code cpu.pressure}).
+     */
+    private double readPressure(String resource) {
+        Path file = Paths.get(psiDir, resource);
+        if (!Files.exists(file)) {
+            file = Paths.get(psiDir, resource + ".pressure");
+        }
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith("some ")) {
+                    return parseAvg10(line);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("PSI not available at {}: {}", file, e.getMessage());
+        }
+        return 0;
+    }
+
+    static double parseAvg10(String line) {
+        for (String field : line.split(" ")) {
+            if (field.startsWith("avg10=")) {
+                return Double.parseDouble(field.substring("avg10=".length()));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Memory available to new boxes: MemAvailable from /proc/meminfo, lowered to the room left under the
+     * cgroup limit when the executor runs in a memory-limited cgroup. NaN if unknown.
+     */
+    private double readAvailableMemoryMb() {
+        double available = Double.NaN;
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/meminfo"))) {
+                if (line.startsWith("MemAvailable:")) {
+                    available = Long.parseLong(line.trim().split("\\s+")[1]) / 1024.0;
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Available memory unknown: {}", e.getMessage());
+        }
+
+        try {
+            String max = Files.readString(Paths.get(CGROUP_DIR, "memory.max")).trim();
+            if (!"max".equals(max)) {
+                long current = Long.parseLong(Files.readString(Paths.get(CGROUP_DIR, "memory.current")).trim());
+                double cgroupAvailable = (Long.parseLong(max) - current) / (1024.0 * 1024.0);
+                available = Double.isNaN(available) ? cgroupAvailable : Math.min(available, cgroupAvailable);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not in a cgroup v2 hierarchy with a memory limit
+        }
+        return available;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.executor.utility;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ResourceLimits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the execution path, exported through the actuator Prometheus endpoint.
+ * Phase timers and verdict counters are tagged by language and problem; sandbox histograms hold the
+ * {@code time} and {@code cg-mem} values isolate reports for every run.
+ * Both tags come from the submission message, so values outside the supported languages and the loaded
+ * problem set are counted under {@code other} instead of opening a new series each.
+ */
+@Component
+public class ExecutionMetrics {
+
+    public static final String PHASE_BOX_ACQUIRE = "box-acquire";
+    public static final String PHASE_FETCH = "fetch";
+    public static final String PHASE_COMPILE = "compile";
+    public static final String PHASE_RUN = "run";
+    public static final String PHASE_HARNESS = "harness";
+    public static final String PHASE_META = "meta";
+    public static final String PHASE_CLEANUP = "cleanup";
+    public static final String PHASE_PUBLISH = "publish";
+
+    private static final String ALL = "all";
+    private static final String OTHER = "other";
+    private static final Set<String> LANGUAGES = Set.of(ExecutorConstants.LANG_JAVA, ExecutorConstants.LANG_JAVASCRIPT);
+
+    private final MeterRegistry registry;
+
+    @Value("${executor.metrics.problem-tag.enabled:true}")
+    private boolean problemTagEnabled;
+
+    private volatile Predicate<String> knownProblems = problem -> false;
+
+    public ExecutionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Sets which problem names are tagged by name; every other problem is tagged {@code other}.
+     *
+     * @param knownProblems true for a problem of the problem set
+     */
+    public void setKnownProblems(Predicate<String> knownProblems) {
+        this.knownProblems = knownProblems;
+    }
+
+    /**
+     * Starts timing a phase; pass the sample to {@link #stopPhase}.
+     *
+     * @return the running sample
+     */
+    public Timer.Sample startPhase() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param sample   sample returned by {@link #startPhase()}
+     * @param phase    one of the {@code PHASE_} names
+     * @param language submission language, or null for phases outside a submission
+     * @param problem  problem name, or null for phases outside a submission
+     */
+    public void stopPhase(Timer.Sample sample, String phase, String language, String problem) {
+        sample.stop(Timer.builder("executor.phase")
+                .description("Duration of one phase of a submission's execution")
+                .tag("phase", phase)
+                .tag("language", languageTag(language))
+                .tag("problem", problemTag(problem))
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Records the resources isolate measured for one sandbox run.
+     *
+     * @param language  submission language
+     * @param problem   problem name
+     * @param runtimeMs CPU time in milliseconds
+     * @param memoryMb  peak memory in megabytes
+     */
+    public void recordSandboxUsage(String language, String problem, double runtimeMs, double memoryMb) {
+        DistributionSummary.builder("executor.sandbox.time")
+                .description("CPU time of a sandbox run")
+                .baseUnit("milliseconds")
+                .tag("language", languageTag(language))
+                .tag("problem", problemTag(problem))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(runtimeMs);
+        DistributionSummary.builder("executor.sandbox.memory")
+                .description("Peak memory of a sandbox run")
+                .baseUnit("megabytes")
+                .tag("language", languageTag(language))
+                .tag("problem", problemTag(problem))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(memoryMb);
+    }
+
+    /**
+     * Counts a finished submission by verdict.
+     *
+     * @param verdict  the submission's verdict
+     * @param language submission language
+     * @param problem  problem name
+     */
+    public void countVerdict(Verdict verdict, String language, String problem) {
+        Counter.builder("executor.verdicts")
+                .description("Finished submissions by verdict")
+                .tag("verdict", verdict.name())
+                .tag("language", languageTag(language))
+                .tag("problem", problemTag(problem))
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Highest sandbox peak memory recorded recently, across languages and problems.
+     * Uses the summaries' decaying maximum, which covers the last few minutes.
+     *
+     * @return peak memory in megabytes, 0 if no run was recorded recently
+     */
+    public double recentPeakSandboxMemory() {
+        double peak = 0;
+        for (DistributionSummary summary : registry.find("executor.sandbox.memory").summaries()) {
+            peak = Math.max(peak, summary.max());
+        }
+        return peak;
+    }
+
+    /**
+     * Counts an adjustment decision of the concurrency controller.
+     *
+     * @param action increase, decrease or hold
+     * @param reason what drove the decision
+     */
+    public void countConcurrencyDecision(String action, String reason) {
+        Counter.builder("executor.concurrency.decisions")
+                .description("Adjustments of the concurrent execution limit")
+                .tag("action", action)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Registers a gauge sampled on every scrape.
+     *
+     * @param name        metric name
+     * @param description metric description
+     * @param value       current value
+     */
+    public void gauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value)
+                .description(description)
+                .register(registry);
+    }
+
+    private String languageTag(String language) {
+        if (language == null) {
+            return ALL;
+        }
+        String key = ResourceLimits.languageKey(language);
+        return LANGUAGES.contains(key) ? key : OTHER;
+    }
+
+    // Problem names can be dropped for large problem sets to bound the series count
+    private String problemTag(String problem) {
+        if (!problemTagEnabled || problem == null) {
+            return ALL;
+        }
+        return knownProblems.test(problem) ? problem : OTHER;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.executor.utility;
+
+import com.example.executor.model.IsolateMeta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parses the {@code key:value} meta file isolate writes after every run.
+ * The file is read into a per-thread buffer and parsed in place, without creating lines, strings or boxed
+ * numbers, into a caller-owned {@link IsolateMeta}.
+ */
+public final class IsolateMetaParser {
+
+    private static final int BUFFER_BYTES = 4096;
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_BYTES]);
+
+    private static final byte[] TIME = key("time");
+    private static final byte[] TIME_WALL = key("time-wall");
+    private static final byte[] CG_MEM = key("cg-mem");
+    private static final byte[] MAX_RSS = key("max-rss");
+    private static final byte[] STATUS = key("status");
+    private static final byte[] EXIT_CODE = key("exitcode");
+    private static final byte[] EXIT_SIGNAL = key("exitsig");
+    private static final byte[] KILLED = key("killed");
+    private static final byte[] CG_OOM_KILLED = key("cg-oom-killed");
+
+    private IsolateMetaParser() {
+    }
+
+    /**
+     * Reads a meta file into the given instance.
+     *
+     * @param metaFile the meta file
+     * @param meta     instance to fill; reset first
+     */
+    public static void parse(Path metaFile, IsolateMeta meta) throws IOException {
+        byte[] buffer = BUFFER.get();
+        int length;
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            length = in.readNBytes(buffer, 0, buffer.length);
+        }
+        parse(buffer, length, meta);
+    }
+
+    /**
+     * Parses meta file content into the given instance. Unknown keys are ignored.
+     * The cgroup peak ({@code cg-mem}) is preferred, {@code max-rss} is the fallback when isolate runs without cgroups.
+     *
+     * @param data   meta file bytes
+     * @param length number of valid bytes
+     * @param meta   instance to fill; reset first
+     */
+    public static void parse(byte[] data, int length, IsolateMeta meta) {
+        meta.reset();
+        double maxRssMb = 0.0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int colon = lineStart;
+            while (colon < lineEnd && data[colon] != ':') {
+                colon++;
+            }
+
+            if (colon < lineEnd) {
+                int valueStart = colon + 1;
+                if (keyEquals(data, lineStart, colon, TIME)) {
+                    meta.setRuntime(parseDecimal(data, valueStart, lineEnd) * 1000); // Convert to milliseconds
+                } else if (keyEquals(data, lineStart, colon, TIME_WALL)) {
+                    meta.setWallTime(parseDecimal(data, valueStart, lineEnd) * 1000);
+                } else if (keyEquals(data, lineStart, colon, CG_MEM)) {
+                    meta.setMemory(parseDecimal(data, valueStart, lineEnd) / 1024.0); // Convert KB to MB
+                } else if (keyEquals(data, lineStart, colon, MAX_RSS)) {
+                    maxRssMb = parseDecimal(data, valueStart, lineEnd) / 1024.0;
+                } else if (keyEquals(data, lineStart, colon, STATUS)) {
+                    meta.setStatus(status(data, valueStart, lineEnd));
+                } else if (keyEquals(data, lineStart, colon, EXIT_CODE)) {
+                    meta.setExitCode((int) parseDecimal(data, valueStart, lineEnd));
+                } else if (keyEquals(data, lineStart, colon, EXIT_SIGNAL)) {
+                    meta.setExitSignal((int) parseDecimal(data, valueStart, lineEnd));
+                } else if (keyEquals(data, lineStart, colon, KILLED)) {
+                    meta.setKilled(true);
+                } else if (keyEquals(data, lineStart, colon, CG_OOM_KILLED)) {
+                    meta.setOomKilled(true);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        if (meta.getMemory() == 0.0) {
+            meta.setMemory(maxRssMb); // Fallback
+        }
+    }
+
+    private static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean keyEquals(byte[] data, int from, int to, byte[] key) {
+        if (to - from != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (data[from + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a non-negative decimal such as {@code 0.142} or {@code 51200}; parsing stops at the first other character.
+     */
+    private static double parseDecimal(byte[] data, int from, int to) {
+        long integer = 0;
+        long fraction = 0;
+        long scale = 1;
+        int i = from;
+        while (i < to && data[i] == ' ') {
+            i++;
+        }
+        while (i < to && data[i] >= '0' && data[i] <= '9') {
+            integer = integer * 10 + (data[i++] - '0');
+        }
+        if (i < to && data[i] == '.') {
+            i++;
+            while (i < to && data[i] >= '0' && data[i] <= '9' && scale < 1_000_000_000L) {
+                fraction = fraction * 10 + (data[i++] - '0');
+                scale *= 10;
+            }
+        }
+        return integer + (double) fraction / scale;
+    }
+
+    // isolate's status codes are two letters; map them to constants instead of allocating strings
+    private static String status(byte[] data, int from, int to) {
+        if (to - from < 2) {
+            return null;
+        }
+        byte first = data[from];
+        byte second = data[from + 1];
+        if (first == 'R' && second == 'E') {
+            return "RE";
+        } else if (first == 'S' && second == 'G') {
+            return "SG";
+        } else if (first == 'T' && second == 'O') {
+            return "TO";
+        } else if (first == 'X' && second == 'X') {
+            return "XX";
+        }
+        return null;
+    }
+}
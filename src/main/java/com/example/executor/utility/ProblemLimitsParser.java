@@ -0,0 +1,98 @@
+package com.example.executor.utility;
+
+import com.example.executor.model.ProblemLimits;
+import com.example.executor.model.ResourceLimits;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses a problem's {@code problem.yaml}:
+ * <pre>
+ * time-ms: 1000
+ * wall-time-ms: 3000
+ * memory-mb: 64
+ * processes: 4
+ * languages:
+ *   java:
+ *     time-ms: 2000
+ *     memory-mb: 512
+ *     heap-mb: 128
+ *     processes: 20
+ * </pre>
+ * Every key is optional. Unknown keys and non-positive values are rejected, so a typo fails the problem's load
+ * instead of silently running it with the defaults.
+ */
+public final class ProblemLimitsParser {
+
+    private static final String TIME = "time-ms";
+    private static final String WALL_TIME = "wall-time-ms";
+    private static final String MEMORY = "memory-mb";
+    private static final String HEAP = "heap-mb";
+    private static final String PROCESSES = "processes";
+    private static final String LANGUAGES = "languages";
+
+    private ProblemLimitsParser() {
+    }
+
+    /**
+     * Parses the limits file content.
+     *
+     * @param yaml content of {@code problem.yaml}
+     * @return the limits, with unset fields null
+     * @throws IllegalArgumentException if the file is not a mapping of the known keys to positive integers
+     */
+    public static ProblemLimits parse(String yaml) {
+        Object document;
+        try {
+            document = new Yaml(new SafeConstructor(new LoaderOptions())).load(yaml);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid YAML: " + e.getMessage(), e);
+        }
+        if (document == null) {
+            return new ProblemLimits();
+        }
+        return parseLimits(document, "", true);
+    }
+
+    private static ProblemLimits parseLimits(Object node, String path, boolean topLevel) {
+        if (!(node instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Expected a mapping at " + (path.isEmpty() ? "the top level" : path));
+        }
+        ProblemLimits limits = new ProblemLimits();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            switch (key) {
+                case TIME -> limits.setTimeMs(positive(value, path + key));
+                case WALL_TIME -> limits.setWallTimeMs(positive(value, path + key));
+                case MEMORY -> limits.setMemoryMb(positive(value, path + key));
+                case HEAP -> limits.setHeapMb(positive(value, path + key));
+                case PROCESSES -> limits.setProcesses(positive(value, path + key));
+                case LANGUAGES -> {
+                    if (!topLevel || !(value instanceof Map<?, ?> languages)) {
+                        throw new IllegalArgumentException("Unexpected " + path + key);
+                    }
+                    Map<String, ProblemLimits> overrides = new LinkedHashMap<>();
+                    for (Map.Entry<?, ?> language : languages.entrySet()) {
+                        String name = ResourceLimits.languageKey(String.valueOf(language.getKey()));
+                        overrides.put(name, parseLimits(language.getValue(), LANGUAGES + "." + name + ".", false));
+                    }
+                    limits.setLanguages(overrides);
+                }
+                default -> throw new IllegalArgumentException("Unknown key " + path + key);
+            }
+        }
+        return limits;
+    }
+
+    private static int positive(Object value, String key) {
+        if (!(value instanceof Integer number) || number <= 0) {
+            throw new IllegalArgumentException(key + " must be a positive integer, got " + value);
+        }
+        return number;
+    }
+}
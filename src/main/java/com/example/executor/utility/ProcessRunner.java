@@ -0,0 +1,359 @@
+package com.example.executor.utility;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs host commands (tool detection, javac, isolate --init/--cleanup, archive generation) without a thread per child.
+ * A single reactor thread polls the stdout and stderr pipes of every running child, reads only what is available
+ * so it never blocks on one child, and captures each stream separately into pooled chunks capped at the output
+ * limit. A child that exceeds the output limit or the timeout is killed. Completion is reported through a
+ * {@link CompletableFuture}; dependent stages run on the reactor thread unless attached asynchronously.
+ *
+ * <p>Sandboxed test runs do not go through here: their output is streamed straight into the comparator by the
+ * execution thread that waits for them anyway.</p>
+ */
+@Slf4j
+@Component
+public class ProcessRunner {
+
+    private static final int CHUNK_BYTES = 8192;
+    private static final int MAX_POOLED_CHUNKS = 256;
+    private static final long MIN_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final long MAX_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long KILL_GRACE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Outcome of a finished command.
+     *
+     * @param exitCode            the process exit code
+     * @param stdout              captured standard output, at most the output limit
+     * @param stderr              captured standard error, at most the output limit
+     * @param outputLimitExceeded true if the command was killed for printing too much
+     * @param timedOut            true if the command was killed for running too long
+     */
+    public record Result(int exitCode, byte[] stdout, byte[] stderr, boolean outputLimitExceeded, boolean timedOut) {
+
+        public String stdoutText() {
+            return new String(stdout, StandardCharsets.UTF_8);
+        }
+
+        public String stderrText() {
+            return new String(stderr, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return standard output followed by standard error, for tools that report on either
+         */
+        public String output() {
+            return stdoutText() + stderrText();
+        }
+
+        /**
+         * @return true if the command exited with 0 on its own
+         */
+        public boolean succeeded() {
+            return exitCode == 0 && !outputLimitExceeded && !timedOut;
+        }
+    }
+
+    @Value("${executor.process.max-output-bytes:1048576}")
+    private long maxOutputBytes;
+
+    @Value("${executor.process.timeout-ms:120000}")
+    private long timeoutMillis;
+
+    private final LinkedBlockingQueue<Child> pending = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<byte[]> chunkPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledChunks = new AtomicInteger();
+    private final byte[] discard = new byte[CHUNK_BYTES];
+    private Thread reactor;
+    private volatile boolean running = true;
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        synchronized (this) {
+            if (reactor != null) {
+                reactor.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Starts a command; its output is captured by the reactor.
+     *
+     * @param command the command and its arguments
+     * @param workDir working directory, or null for the current one
+     * @param stdin   file to use as standard input, or null for none
+     * @return a future completed with the result once the command exits
+     * @throws IOException if the command could not be started
+     */
+    public CompletableFuture<Result> start(List<String> command, Path workDir, Path stdin) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        if (workDir != null) {
+            processBuilder.directory(workDir.toFile());
+        }
+        if (stdin != null) {
+            processBuilder.redirectInput(stdin.toFile());
+        }
+        Process process = processBuilder.start();
+        if (stdin == null) {
+            process.getOutputStream().close();
+        }
+
+        Child child = new Child(process, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        ensureReactor();
+        pending.add(child);
+        return child.future;
+    }
+
+    /**
+     * Runs a command and waits for it to finish.
+     *
+     * @param command the command and its arguments
+     * @param workDir working directory, or null for the current one
+     * @param stdin   file to use as standard input, or null for none
+     * @return the result
+     * @throws IOException          if the command could not be started or its output could not be read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Result run(List<String> command, Path workDir, Path stdin) throws IOException, InterruptedException {
+        try {
+            return start(command, workDir, stdin).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to run " + command.get(0), e.getCause());
+        }
+    }
+
+    /**
+     * Runs a command without stdin in the current directory and waits for it to finish.
+     *
+     * @param command the command and its arguments
+     * @return the result
+     */
+    public Result run(String... command) throws IOException, InterruptedException {
+        return run(Arrays.asList(command), null, null);
+    }
+
+    private synchronized void ensureReactor() {
+        if (reactor == null) {
+            reactor = new Thread(this::react, "process-reactor");
+            reactor.setDaemon(true);
+            reactor.start();
+        }
+    }
+
+    private void react() {
+        List<Child> active = new ArrayList<>();
+        long idleNanos = MIN_POLL_NANOS;
+        try {
+            while (running) {
+                if (active.isEmpty()) {
+                    active.add(pending.take());
+                }
+                pending.drainTo(active);
+
+                boolean progress = false;
+                Iterator<Child> iterator = active.iterator();
+                while (iterator.hasNext()) {
+                    Child child = iterator.next();
+                    try {
+                        if (poll(child)) {
+                            progress = true;
+                        }
+                        if (child.future.isDone()) {
+                            iterator.remove();
+                        }
+                    } catch (IOException e) {
+                        child.process.destroyForcibly();
+                        child.release();
+                        child.future.completeExceptionally(e);
+                        iterator.remove();
+                    }
+                }
+
+                // Back off while every child is quiet, so a long-running command costs almost nothing
+                if (progress) {
+                    idleNanos = MIN_POLL_NANOS;
+                } else {
+                    LockSupport.parkNanos(idleNanos);
+                    idleNanos = Math.min(MAX_POLL_NANOS, idleNanos * 2);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pending.drainTo(active);
+            for (Child child : active) {
+                child.process.destroyForcibly();
+                child.release();
+                child.future.completeExceptionally(new IOException("Process runner shut down"));
+            }
+        }
+    }
+
+    /**
+     * Reads whatever the child has written so far and completes it once it has exited.
+     *
+     * @return true if any output was read or the child completed
+     */
+    private boolean poll(Child child) throws IOException {
+        // Sampled before reading: output written before the exit is then fully drained below
+        boolean alive = child.process.isAlive();
+        // Destroying a process closes its pipes, so a killed child keeps what was captured before the kill
+        int read = 0;
+        if (child.killedAt == 0) {
+            read = child.stdout.pump(child.process.getInputStream()) + child.stderr.pump(child.process.getErrorStream());
+        }
+
+        long now = System.nanoTime();
+        if (child.killedAt == 0 && (child.stdout.exceeded || child.stderr.exceeded)) {
+            log.warn("Command {} exceeded {} bytes of output, killing it", child.process.info().command().orElse("?"), maxOutputBytes);
+            kill(child, now);
+        } else if (child.killedAt == 0 && now > child.deadline) {
+            log.warn("Command {} did not finish within {} ms, killing it", child.process.info().command().orElse("?"), timeoutMillis);
+            child.timedOut = true;
+            kill(child, now);
+        } else if (child.killedAt != 0 && alive && now - child.killedAt > KILL_GRACE_NANOS) {
+            child.process.destroyForcibly();
+        }
+
+        if (alive) {
+            return read > 0;
+        }
+        Result result = new Result(child.process.exitValue(), child.stdout.toByteArray(), child.stderr.toByteArray(),
+                child.stdout.exceeded || child.stderr.exceeded, child.timedOut);
+        child.release();
+        child.future.complete(result);
+        return true;
+    }
+
+    private void kill(Child child, long now) {
+        child.killedAt = now;
+        child.process.destroy();
+    }
+
+    private byte[] borrowChunk() {
+        byte[] chunk = chunkPool.poll();
+        if (chunk == null) {
+            return new byte[CHUNK_BYTES];
+        }
+        pooledChunks.decrementAndGet();
+        return chunk;
+    }
+
+    private void returnChunk(byte[] chunk) {
+        if (pooledChunks.incrementAndGet() <= MAX_POOLED_CHUNKS) {
+            chunkPool.offer(chunk);
+        } else {
+            pooledChunks.decrementAndGet();
+        }
+    }
+
+    private final class Child {
+        private final Process process;
+        private final long deadline;
+        private final Capture stdout = new Capture();
+        private final Capture stderr = new Capture();
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        private long killedAt;
+        private boolean timedOut;
+
+        private Child(Process process, long deadline) {
+            this.process = process;
+            this.deadline = deadline;
+        }
+
+        private void release() {
+            stdout.release();
+            stderr.release();
+            try {
+                process.getInputStream().close();
+                process.getErrorStream().close();
+            } catch (IOException e) {
+                log.debug("Could not close process streams: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One output stream captured into pooled chunks; bytes beyond the output limit are read and dropped.
+     */
+    private final class Capture {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private int lastChunkUsed = CHUNK_BYTES;
+        private long size;
+        private boolean exceeded;
+
+        /**
+         * Reads the bytes available right now without blocking.
+         *
+         * @return number of bytes read
+         */
+        private int pump(InputStream in) throws IOException {
+            int total = 0;
+            int available;
+            while ((available = in.available()) > 0) {
+                int read;
+                if (size >= maxOutputBytes) {
+                    exceeded = true;
+                    read = in.read(discard, 0, Math.min(available, discard.length));
+                } else {
+                    if (lastChunkUsed == CHUNK_BYTES) {
+                        chunks.add(borrowChunk());
+                        lastChunkUsed = 0;
+                    }
+                    int length = (int) Math.min(Math.min(available, CHUNK_BYTES - lastChunkUsed), maxOutputBytes - size);
+                    read = in.read(chunks.get(chunks.size() - 1), lastChunkUsed, length);
+                    if (read > 0) {
+                        lastChunkUsed += read;
+                        size += read;
+                    }
+                }
+                if (read <= 0) {
+                    break;
+                }
+                total += read;
+            }
+            return total;
+        }
+
+        private byte[] toByteArray() {
+            byte[] bytes = new byte[(int) size];
+            int offset = 0;
+            for (byte[] chunk : chunks) {
+                int length = (int) Math.min(CHUNK_BYTES, size - offset);
+                System.arraycopy(chunk, 0, bytes, offset, length);
+                offset += length;
+            }
+            return bytes;
+        }
+
+        private void release() {
+            chunks.forEach(ProcessRunner.this::returnChunk);
+            chunks.clear();
+        }
+    }
+}
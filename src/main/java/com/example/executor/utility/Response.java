@@ -1,5 +1,7 @@
 package com.example.executor.utility;
 
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
 import lombok.Data;
 
 @Data
@@ -10,6 +12,9 @@ public class Response {
     private String submissionId;
     private String userId;
     private Long problemId;
+    private Verdict verdict;   // Verdict of the whole submission: the first non-AC test verdict, CE or IE
+    private Verdict[] verdicts; // Verdict for each test case that ran
     private Double[] runtime;  // Runtime in milliseconds for each test case
     private Double[] memory;   // Memory usage in MB for each test case
+    private RuntimeErrorType errorType; // How the run that ended the submission failed, for RE and MLE
 }
\ No newline at end of file
@@ -23,4 +23,20 @@ public class ResponseManager {
         response.setErrorList(error);
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * Shallow copy of a response, for setting the submission fields of a result shared between submissions.
+     */
+    public Response copyOf(Response source) {
+        Response response = new Response();
+        response.setData(source.getData());
+        response.setStatus(source.getStatus());
+        response.setErrorList(source.getErrorList());
+        response.setVerdict(source.getVerdict());
+        response.setVerdicts(source.getVerdicts());
+        response.setRuntime(source.getRuntime());
+        response.setMemory(source.getMemory());
+        response.setErrorType(source.getErrorType());
+        return response;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.executor.utility;
+
+import com.example.executor.enums.RuntimeErrorPattern;
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.model.IsolateMeta;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Classifies how a sandbox run failed from its output and the isolate meta file.
+ * All {@link RuntimeErrorPattern} substrings are matched in a single pass by an Aho-Corasick automaton
+ * built once at class load, and only a bounded head and tail of the output are scanned.
+ */
+public final class RuntimeErrorClassifier {
+
+    private static final int MAX_SCAN_CHARS = 8192;
+    private static final int ALPHABET = 128;
+    private static final int SIGSEGV = 11;
+
+    // Extra keywords for the combined checks of JAVA_EXCEPTION and PROCESS_EXIT_ERROR
+    private static final String JAVA_LANG = "java.lang.";
+    private static final String EXCEPTION = "Exception";
+    private static final String ERROR = "Error";
+    private static final String EXIT_CODE_ZERO = "code: 0";
+
+    private static final List<String> KEYWORDS = new ArrayList<>();
+    private static final long[] CATEGORY_MASKS = new long[RuntimeErrorPattern.values().length];
+    private static final long JAVA_LANG_BIT;
+    private static final long EXCEPTION_OR_ERROR_BITS;
+    private static final long EXIT_CODE_ZERO_BIT;
+
+    private static int[][] transitions;
+    private static long[] matches;
+
+    static {
+        for (RuntimeErrorPattern pattern : RuntimeErrorPattern.values()) {
+            for (String keyword : pattern.getPatterns()) {
+                CATEGORY_MASKS[pattern.ordinal()] |= keywordBit(keyword);
+            }
+        }
+        JAVA_LANG_BIT = keywordBit(JAVA_LANG);
+        EXCEPTION_OR_ERROR_BITS = keywordBit(EXCEPTION) | keywordBit(ERROR);
+        EXIT_CODE_ZERO_BIT = keywordBit(EXIT_CODE_ZERO);
+        buildAutomaton();
+    }
+
+    private RuntimeErrorClassifier() {
+    }
+
+    /**
+     * Classifies a run from its output alone.
+     *
+     * @param output the program output
+     * @return the runtime error type, NONE if the output shows no error
+     */
+    public static RuntimeErrorType classify(String output) {
+        return classify(output, null);
+    }
+
+    /**
+     * Classifies a run from its output, falling back to the isolate meta file when the output shows no error.
+     * Output patterns win because they are more specific, e.g. an uncaught exception also exits non-zero.
+     *
+     * @param output the program output
+     * @param meta   the isolate meta of the run, or null if it is unavailable or the run was stopped by the executor
+     * @return the runtime error type, NONE if the run ended normally
+     */
+    public static RuntimeErrorType classify(String output, IsolateMeta meta) {
+        long found = scan(output);
+        if ((found & CATEGORY_MASKS[RuntimeErrorPattern.JVM_INITIALIZATION_ERROR.ordinal()]) != 0) {
+            return RuntimeErrorType.JVM_INIT_FAILURE;
+        }
+        if ((found & CATEGORY_MASKS[RuntimeErrorPattern.OUT_OF_MEMORY.ordinal()]) != 0 || (meta != null && meta.isOomKilled())) {
+            return RuntimeErrorType.OUT_OF_MEMORY;
+        }
+        if ((found & CATEGORY_MASKS[RuntimeErrorPattern.JAVA_EXCEPTION.ordinal()]) != 0
+                || ((found & JAVA_LANG_BIT) != 0 && (found & EXCEPTION_OR_ERROR_BITS) != 0)) {
+            return RuntimeErrorType.UNCAUGHT_EXCEPTION;
+        }
+        if ((found & CATEGORY_MASKS[RuntimeErrorPattern.SYSTEM_ERROR.ordinal()]) != 0) {
+            return RuntimeErrorType.SEGMENTATION_FAULT;
+        }
+        if ((found & CATEGORY_MASKS[RuntimeErrorPattern.PROCESS_EXIT_ERROR.ordinal()]) != 0 && (found & EXIT_CODE_ZERO_BIT) == 0) {
+            return RuntimeErrorType.NON_ZERO_EXIT;
+        }
+
+        if (meta != null) {
+            if ("SG".equals(meta.getStatus())) {
+                return meta.getExitSignal() == SIGSEGV ? RuntimeErrorType.SEGMENTATION_FAULT : RuntimeErrorType.KILLED_BY_SIGNAL;
+            }
+            if ("RE".equals(meta.getStatus()) || meta.getExitCode() != 0) {
+                return RuntimeErrorType.NON_ZERO_EXIT;
+            }
+        }
+        return RuntimeErrorType.NONE;
+    }
+
+    /**
+     * Error messages are printed either first (JVM startup) or last (stack traces), so long outputs
+     * are scanned in their first and last half of {@link #MAX_SCAN_CHARS} only.
+     */
+    private static long scan(String output) {
+        if (output == null || output.isEmpty()) {
+            return 0;
+        }
+        if (output.length() <= MAX_SCAN_CHARS) {
+            return scan(output, 0, output.length());
+        }
+        return scan(output, 0, MAX_SCAN_CHARS / 2) | scan(output, output.length() - MAX_SCAN_CHARS / 2, output.length());
+    }
+
+    private static long scan(String text, int from, int to) {
+        long found = 0;
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            // Every keyword is ASCII, so any other character breaks all partial matches
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            found |= matches[state];
+        }
+        return found;
+    }
+
+    private static long keywordBit(String keyword) {
+        int index = KEYWORDS.indexOf(keyword);
+        if (index < 0) {
+            index = KEYWORDS.size();
+            KEYWORDS.add(keyword);
+        }
+        if (index >= Long.SIZE) {
+            throw new IllegalStateException("Too many runtime error keywords");
+        }
+        return 1L << index;
+    }
+
+    private static void buildAutomaton() {
+        List<int[]> goTo = new ArrayList<>();
+        List<Long> output = new ArrayList<>();
+        goTo.add(newState());
+        output.add(0L);
+
+        // Trie of all keywords
+        for (int k = 0; k < KEYWORDS.size(); k++) {
+            int state = 0;
+            for (char c : KEYWORDS.get(k).toCharArray()) {
+                if (goTo.get(state)[c] < 0) {
+                    goTo.get(state)[c] = goTo.size();
+                    goTo.add(newState());
+                    output.add(0L);
+                }
+                state = goTo.get(state)[c];
+            }
+            output.set(state, output.get(state) | (1L << k));
+        }
+
+        // Breadth-first failure links, folded into a full transition table so scanning never backtracks
+        int[] failure = new int[goTo.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = goTo.get(0)[c];
+            if (next < 0) {
+                goTo.get(0)[c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output.set(state, output.get(state) | output.get(failure[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = goTo.get(state)[c];
+                if (next < 0) {
+                    goTo.get(state)[c] = goTo.get(failure[state])[c];
+                } else {
+                    failure[next] = goTo.get(failure[state])[c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        transitions = goTo.toArray(new int[0][]);
+        matches = output.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+}
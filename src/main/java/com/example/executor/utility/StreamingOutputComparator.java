@@ -0,0 +1,212 @@
+package com.example.executor.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares program output against the expected output while it is being read, ignoring all whitespace
+ * (the same rule as stripping {@code \s+} from both sides and comparing the rest).
+ * Only a bounded head and tail of the output are kept, for the result message and runtime error detection,
+ * so memory use does not depend on how much the program prints.
+ *
+ * <p>Feed chunks with {@link #accept(char[], int, int)} until it returns false or the output ends, then
+ * call {@link #finish()}. Without an expected output the comparator only captures the bounded snippet.</p>
+ */
+public class StreamingOutputComparator {
+
+    private static final int READ_BUFFER_CHARS = 8192;
+    private static final String TRUNCATION_MARKER = "\n...\n";
+
+    private final String expected;
+    private final long maxOutputChars;
+    private final int snippetChars;
+
+    private final StringBuilder head = new StringBuilder();
+    private final char[] tail;
+    private int tailStart;
+    private int tailLength;
+    private boolean dropped;    // Characters between the head and the tail were discarded
+
+    private int expectedPosition;
+    private long outputChars;
+    private long graceRemaining = -1;
+    private boolean mismatch;
+    private boolean limitExceeded;
+    private boolean finished;
+
+    /**
+     * @param expected       the expected output, or null to only capture the output
+     * @param maxOutputChars output size limit; exceeding it stops the comparison
+     * @param snippetChars   how many characters of head and of tail are kept
+     */
+    public StreamingOutputComparator(String expected, long maxOutputChars, int snippetChars) {
+        this.expected = expected;
+        this.maxOutputChars = maxOutputChars;
+        this.snippetChars = snippetChars;
+        this.tail = new char[snippetChars];
+    }
+
+    /**
+     * Reads a whole stream through a comparator, stopping early once the verdict is known.
+     *
+     * @param in             the output stream, read as UTF-8
+     * @param expected       the expected output, or null to only capture the output
+     * @param maxOutputChars output size limit
+     * @param snippetChars   snippet size
+     * @return the finished comparator
+     */
+    public static StreamingOutputComparator compare(InputStream in, String expected, long maxOutputChars, int snippetChars) throws IOException {
+        StreamingOutputComparator comparator = new StreamingOutputComparator(expected, maxOutputChars, snippetChars);
+        comparator.consume(in);
+        comparator.finish();
+        return comparator;
+    }
+
+    /**
+     * Feeds the stream until it ends or the comparator stops accepting output. Does not call {@link #finish()}.
+     *
+     * @param in the output stream, read as UTF-8
+     * @return true if the whole stream was consumed, false if reading stopped early
+     */
+    public boolean consume(InputStream in) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buffer = new char[READ_BUFFER_CHARS];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            if (!accept(buffer, 0, read)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Feeds the next chunk of output.
+     *
+     * @return false once no more output is needed: the size limit was exceeded, or a mismatch was found and
+     * a short grace window after it (to capture a trailing error message) has been read
+     */
+    public boolean accept(char[] chunk, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = chunk[i];
+            if (++outputChars > maxOutputChars) {
+                limitExceeded = true;
+                return false;
+            }
+            record(c);
+
+            if (mismatch) {
+                if (--graceRemaining <= 0) {
+                    return false;
+                }
+                continue;
+            }
+            if (expected == null || isWhitespace(c)) {
+                continue;
+            }
+            skipExpectedWhitespace();
+            if (expectedPosition < expected.length() && expected.charAt(expectedPosition) == c) {
+                expectedPosition++;
+            } else {
+                mismatch = true;
+                graceRemaining = snippetChars;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the end of the output; trailing expected output that never arrived counts as a mismatch.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (expected != null && !mismatch && !limitExceeded) {
+            skipExpectedWhitespace();
+            mismatch = expectedPosition < expected.length();
+        }
+    }
+
+    /**
+     * @return true if the output matched the expected output (only meaningful after {@link #finish()})
+     */
+    public boolean isMatch() {
+        return expected != null && finished && !mismatch && !limitExceeded;
+    }
+
+    public boolean isMismatch() {
+        return mismatch;
+    }
+
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * @return true if the program printed nothing at all
+     */
+    public boolean isEmpty() {
+        return outputChars == 0;
+    }
+
+    /**
+     * @return the bounded output: the head, then the tail, with a truncation marker between them only if
+     * characters in between were discarded
+     */
+    public String getOutput() {
+        if (tailLength == 0 && !dropped) {
+            return head.toString();
+        }
+        StringBuilder output = new StringBuilder(head.length() + TRUNCATION_MARKER.length() + tailLength);
+        output.append(head).append(dropped ? TRUNCATION_MARKER : "");
+        for (int i = 0; i < tailLength; i++) {
+            output.append(tail[(tailStart + i) % tail.length]);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Cuts a string to the snippet size, for the expected side of result messages.
+     *
+     * @param value        the string to shorten
+     * @param snippetChars maximum number of characters kept
+     * @return the string, or its head followed by a truncation marker
+     */
+    public static String snippet(String value, int snippetChars) {
+        return value.length() <= snippetChars ? value : value.substring(0, snippetChars) + TRUNCATION_MARKER;
+    }
+
+    private void record(char c) {
+        if (head.length() < snippetChars) {
+            head.append(c);
+            return;
+        }
+        if (tail.length == 0) {
+            dropped = true;
+            return;
+        }
+        if (tailLength < tail.length) {
+            tail[(tailStart + tailLength++) % tail.length] = c;
+        } else {
+            dropped = true;
+            tail[tailStart] = c;
+            tailStart = (tailStart + 1) % tail.length;
+        }
+    }
+
+    private void skipExpectedWhitespace() {
+        while (expectedPosition < expected.length() && isWhitespace(expected.charAt(expectedPosition))) {
+            expectedPosition++;
+        }
+    }
+
+    // Same character class as the regex \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
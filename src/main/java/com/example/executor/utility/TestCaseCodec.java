@@ -0,0 +1,91 @@
+package com.example.executor.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of a single test input or output in Redis: the UTF-8 bytes, deflate-compressed.
+ * The uncompressed size and CRC32 live in the problem's manifest, so decoding allocates the result once
+ * and detects corrupted or mismatched payloads.
+ */
+public final class TestCaseCodec {
+
+    private static final int BUFFER_BYTES = 8192;
+
+    private TestCaseCodec() {
+    }
+
+    /**
+     * @param data uncompressed bytes
+     * @return their CRC32, as stored in the manifest
+     */
+    public static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Compresses a test's bytes. Test data is mostly digits and whitespace, so the fastest level already
+     * shrinks it several times.
+     *
+     * @param data uncompressed bytes
+     * @return the deflate payload
+     */
+    public static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[BUFFER_BYTES];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses a payload and checks it against the manifest.
+     *
+     * @param payload  the deflate payload
+     * @param size     uncompressed size from the manifest
+     * @param checksum CRC32 from the manifest
+     * @return the test input or output
+     * @throws IllegalStateException if the payload does not match the manifest
+     */
+    public static String decode(byte[] payload, int size, long checksum) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            byte[] data = new byte[size];
+            int length = 0;
+            while (length < size && !inflater.finished()) {
+                int read = inflater.inflate(data, length, size - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            // Drives the inflater to the end of the stream; anything left over means the payload is longer
+            if (!inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+                length++;
+            }
+            if (length != size || !inflater.finished() || checksum(data) != checksum) {
+                throw new IllegalStateException("Test case payload does not match its manifest");
+            }
+            return new String(data, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted test case payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.executor.service;
+
+import com.example.executor.model.CompiledArtifact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompileCacheTests {
+
+	private static final int CLASS_BYTES = 100;
+
+	@TempDir
+	Path cacheDir;
+
+	private CompileCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new CompileCache(null);
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "cacheDir", cacheDir.toString());
+		// Room for two entries of two class files each
+		ReflectionTestUtils.setField(cache, "maxBytes", 5L * CLASS_BYTES);
+		ReflectionTestUtils.setField(cache, "redisEnabled", false);
+		cache.initialize();
+	}
+
+	@Test
+	void storesClassFilesAndDiagnostics() {
+		cache.put("built", artifact((byte) 1));
+		cache.put("broken", new CompiledArtifact(Map.of(), "Main.java:1: error: ';' expected\n1 error\n"));
+
+		CompiledArtifact built = cache.get("built");
+		assertTrue(built.isSuccessful());
+		assertArrayEquals(classBytes((byte) 1), built.getClassFiles().get("Main.class"));
+		assertArrayEquals(classBytes((byte) 1), built.getClassFiles().get("Main$Node.class"));
+		assertEquals("Main.java:1: error: ';' expected\n1 error\n", cache.get("broken").getDiagnostics());
+	}
+
+	@Test
+	void doesNotCacheTransientFailures() {
+		cache.put("timed-out", CompiledArtifact.transientFailure("Compilation timed out after 10000 ms"));
+
+		assertNull(cache.get("timed-out"));
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntry() {
+		cache.put("first", artifact((byte) 1));
+		cache.put("second", artifact((byte) 2));
+		assertNotNull(cache.get("first"));
+
+		cache.put("third", artifact((byte) 3));
+
+		assertNotNull(cache.get("first"));
+		assertNull(cache.get("second"));
+		assertNotNull(cache.get("third"));
+		assertFalse(Files.exists(cacheDir.resolve("second")));
+	}
+
+	@Test
+	void corruptEntryIsDroppedAndCanBeStoredAgain() throws Exception {
+		cache.put("entry", artifact((byte) 1));
+		deleteRecursively(cacheDir.resolve("entry").resolve("classes"));
+
+		assertNull(cache.get("entry"));
+
+		cache.put("entry", artifact((byte) 2));
+		assertArrayEquals(classBytes((byte) 2), cache.get("entry").getClassFiles().get("Main.class"));
+	}
+
+	@Test
+	void readersNeverSeeAnEntryBeingEvicted() {
+		List<CompletableFuture<Void>> workers = new ArrayList<>();
+		for (int worker = 0; worker < 4; worker++) {
+			byte id = (byte) worker;
+			workers.add(CompletableFuture.runAsync(() -> {
+				for (int i = 0; i < 200; i++) {
+					String key = "key-" + (i % 5);
+					cache.put(key, artifact(id));
+					CompiledArtifact read = cache.get(key);
+					// A hit is always complete: both class files, whichever worker stored it
+					if (read != null) {
+						assertEquals(2, read.getClassFiles().size());
+						assertEquals(CLASS_BYTES, read.getClassFiles().get("Main.class").length);
+						assertEquals(CLASS_BYTES, read.getClassFiles().get("Main$Node.class").length);
+					}
+				}
+			}));
+		}
+		workers.forEach(CompletableFuture::join);
+	}
+
+	@Test
+	void relativizesTheBoxPathInDiagnostics() {
+		Path boxPath = Path.of("/var/local/lib/isolate/7/box");
+		String output = "/var/local/lib/isolate/7/box/Main.java:3: error: incompatible types\n1 error\n";
+
+		assertEquals("Main.java:3: error: incompatible types\n1 error\n", cache.relativizeDiagnostics(output, boxPath));
+	}
+
+	private static CompiledArtifact artifact(byte fill) {
+		return new CompiledArtifact(Map.of("Main.class", classBytes(fill), "Main$Node.class", classBytes(fill)), null);
+	}
+
+	private static byte[] classBytes(byte fill) {
+		byte[] bytes = new byte[CLASS_BYTES];
+		Arrays.fill(bytes, fill);
+		return bytes;
+	}
+
+	private static void deleteRecursively(Path dir) throws Exception {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+}
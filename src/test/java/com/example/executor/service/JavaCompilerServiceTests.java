@@ -0,0 +1,126 @@
+package com.example.executor.service;
+
+import com.example.executor.model.CompiledArtifact;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.tools.JavaCompiler;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaCompilerServiceTests {
+
+	private static final String SIMPLE_SOURCE = "public class Main { public static void main(String[] a) {} }";
+
+	private JavaCompilerService compilerService;
+
+	@BeforeEach
+	void setUp() {
+		compilerService = new JavaCompilerService(new TestCaseLoader(null, null, null, null));
+		ReflectionTestUtils.setField(compilerService, "enabled", true);
+		ReflectionTestUtils.setField(compilerService, "poolSize", 1);
+		ReflectionTestUtils.setField(compilerService, "timeoutMs", 30000L);
+		ReflectionTestUtils.setField(compilerService, "maxClassBytes", 1048576L);
+		ReflectionTestUtils.setField(compilerService, "maxDiagnosticsChars", 4096);
+		compilerService.initialize();
+	}
+
+	@AfterEach
+	void tearDown() {
+		compilerService.shutdown();
+	}
+
+	@Test
+	void compilesMainAndNestedClasses() throws InterruptedException {
+		CompiledArtifact artifact = compilerService.compile(
+				"public class Main { static class Node {} public static void main(String[] a) { new Node(); } }");
+
+		assertTrue(artifact.isSuccessful());
+		assertTrue(artifact.getClassFiles().containsKey("Main.class"));
+		assertTrue(artifact.getClassFiles().containsKey("Main$Node.class"));
+	}
+
+	@Test
+	void reportsErrorsInJavacFormat() throws InterruptedException {
+		CompiledArtifact artifact = compilerService.compile(
+				"public class Main {\n    public static void main(String[] a) {\n        int x = \"s\";\n    }\n}\n");
+
+		assertFalse(artifact.isSuccessful());
+		String[] lines = artifact.getDiagnostics().split("\n");
+		assertTrue(lines[0].startsWith("Main.java:3: error: "));
+		assertEquals("        int x = \"s\";", lines[1]);
+		assertEquals("                ^", lines[2]);
+		assertEquals("1 error", lines[3]);
+	}
+
+	@Test
+	void timeoutIsTransientAndDoesNotStarveThePool() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		JavaCompiler realCompiler = (JavaCompiler) ReflectionTestUtils.getField(compilerService, "compiler");
+		// Let the warm-up finish first, it must not pick up the blocking compiler
+		assertTrue(compilerService.compile(SIMPLE_SOURCE).isSuccessful());
+		try {
+			ReflectionTestUtils.setField(compilerService, "compiler", blockingCompiler(realCompiler, release));
+			ReflectionTestUtils.setField(compilerService, "timeoutMs", 200L);
+			CompiledArtifact timedOut = compilerService.compile(SIMPLE_SOURCE);
+
+			assertTrue(timedOut.isTransientFailure());
+			assertFalse(timedOut.isSuccessful());
+
+			// The stuck compilation keeps its thread, a replacement thread serves the next one
+			ReflectionTestUtils.setField(compilerService, "compiler", realCompiler);
+			ReflectionTestUtils.setField(compilerService, "timeoutMs", 30000L);
+			assertTrue(compilerService.compile(SIMPLE_SOURCE).isSuccessful());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void timeoutCoversTimeSpentQueued() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		ThreadPoolExecutor compilerPool = (ThreadPoolExecutor) ReflectionTestUtils.getField(compilerService, "compilerPool");
+		try {
+			// Occupy the only compiler thread so the next compilation never starts
+			compilerPool.submit(() -> {
+				release.await();
+				return null;
+			});
+			ReflectionTestUtils.setField(compilerService, "timeoutMs", 200L);
+			CompiledArtifact timedOut = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> compilerService.compile(SIMPLE_SOURCE));
+
+			assertTrue(timedOut.isTransientFailure());
+		} finally {
+			release.countDown();
+		}
+
+		ReflectionTestUtils.setField(compilerService, "timeoutMs", 30000L);
+		assertTrue(compilerService.compile(SIMPLE_SOURCE).isSuccessful());
+	}
+
+	/**
+	 * A compiler whose compilations block until the latch is released.
+	 */
+	private static JavaCompiler blockingCompiler(JavaCompiler delegate, CountDownLatch release) {
+		JavaCompiler.CompilationTask task = (JavaCompiler.CompilationTask) Proxy.newProxyInstance(
+				JavaCompilerServiceTests.class.getClassLoader(), new Class<?>[]{JavaCompiler.CompilationTask.class}, (proxy, method, args) -> {
+					if (method.getName().equals("call")) {
+						release.await();
+						return false;
+					}
+					return null;
+				});
+		return (JavaCompiler) Proxy.newProxyInstance(
+				JavaCompilerServiceTests.class.getClassLoader(), new Class<?>[]{JavaCompiler.class}, (proxy, method, args) ->
+						method.getName().equals("getTask") ? task : method.invoke(delegate, args));
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.executor.service;
+
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ResourceLimits;
+import com.example.executor.model.TestRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.tools.ToolProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JudgeHarnessTests {
+
+	@TempDir
+	Path boxPath;
+
+	private JudgeHarness harness;
+
+	@BeforeEach
+	void setUp() {
+		harness = new JudgeHarness();
+		ReflectionTestUtils.setField(harness, "enabled", true);
+		harness.initialize();
+	}
+
+	@Test
+	void runsEveryTestWithFreshStaticState() throws Exception {
+		compile("import java.util.Scanner;\n"
+				+ "public class Main {\n"
+				+ "    static int calls;\n"
+				+ "    public static void main(String[] args) {\n"
+				+ "        calls++;\n"
+				+ "        System.out.println(new Scanner(System.in).nextLine() + \" \" + calls);\n"
+				+ "    }\n"
+				+ "}\n");
+		assertTrue(harness.isApplicable("java", 2, boxPath));
+
+		harness.prepare(boxPath, List.of("first\n", "second\n"), true, List.of());
+		runHarness(2, false);
+
+		List<TestRun> results = harness.readResults(boxPath);
+		assertEquals(2, results.size());
+		assertEquals(Verdict.AC, results.get(0).getStatus());
+		assertEquals(Verdict.AC, results.get(1).getStatus());
+		assertEquals("first 1\n", Files.readString(harness.outputPath(boxPath, 0)));
+		assertEquals("second 1\n", Files.readString(harness.outputPath(boxPath, 1)));
+	}
+
+	@Test
+	void failFastStopsAfterTheFirstWrongOutput() throws Exception {
+		compile("import java.util.Scanner;\n"
+				+ "public class Main {\n"
+				+ "    public static void main(String[] args) {\n"
+				+ "        System.out.println(new Scanner(System.in).nextLine());\n"
+				+ "    }\n"
+				+ "}\n");
+		List<String> inputs = List.of("a\n", "b\n", "c\n");
+		List<String> expected = List.of("a", "x", "c");
+
+		harness.prepare(boxPath, inputs, true, expected);
+		runHarness(3, true);
+		List<TestRun> failFast = harness.readResults(boxPath);
+
+		harness.prepare(boxPath, inputs, true, List.of());
+		runHarness(3, false);
+		List<TestRun> full = harness.readResults(boxPath);
+
+		assertEquals(2, failFast.size());
+		assertEquals(Verdict.AC, failFast.get(1).getStatus());
+		assertEquals(3, full.size());
+	}
+
+	@Test
+	void failFastIgnoresWhitespaceDifferences() throws Exception {
+		compile("public class Main {\n"
+				+ "    public static void main(String[] args) {\n"
+				+ "        System.out.print(\"1  2\\r\\n3\");\n"
+				+ "    }\n"
+				+ "}\n");
+
+		harness.prepare(boxPath, List.of("", ""), true, List.of("1 2 3\n", "1\n2\n3"));
+		runHarness(2, true);
+
+		assertEquals(2, harness.readResults(boxPath).size());
+	}
+
+	@Test
+	void runsFastIoOnStandardDescriptorsOneByOne() throws Exception {
+		compile("import java.io.*;\n"
+				+ "public class Main {\n"
+				+ "    public static void main(String[] args) throws IOException {\n"
+				+ "        DataInputStream in = new DataInputStream(new FileInputStream(FileDescriptor.in));\n"
+				+ "        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out));\n"
+				+ "        out.println(in.read());\n"
+				+ "    }\n"
+				+ "}\n");
+
+		assertFalse(harness.isApplicable("java", 2, boxPath));
+	}
+
+	private void runHarness(int testCount, boolean failFast) throws Exception {
+		List<String> command = new ArrayList<>(List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString()));
+		command.addAll(Arrays.asList(harness.runnerArguments(testCount, ".", 0, ResourceLimits.DEFAULT, failFast)));
+		Process process = new ProcessBuilder(command).directory(boxPath.toFile())
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectErrorStream(true).start();
+		assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+	}
+
+	private void compile(String source) throws Exception {
+		Path file = boxPath.resolve("Main.java");
+		Files.writeString(file, source);
+		assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", boxPath.toString(), file.toString()));
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.executor.service;
+
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.enums.Verdict;
+import com.example.executor.utility.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultCacheTests {
+
+	@SuppressWarnings("unchecked")
+	private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, Object> values = mock(ValueOperations.class);
+
+	private ResultCache cache;
+
+	@BeforeEach
+	void setUp() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		cache = new ResultCache(redisTemplate);
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "ttlMinutes", 30L);
+	}
+
+	@Test
+	void identicalSubmissionJoinsTheRunningExecution() {
+		ResultCache.Claim leader = cache.claim("key");
+		ResultCache.Claim follower = cache.claim("key");
+
+		assertTrue(leader.leader());
+		assertFalse(follower.leader());
+		assertEquals(1, cache.getInFlightCount());
+
+		Response response = response(Verdict.WA);
+		cache.complete(leader, response);
+
+		assertSame(response, follower.result().join());
+		assertEquals(0, cache.getInFlightCount());
+		verify(values).set("result:key", response, Duration.ofMinutes(30));
+	}
+
+	@Test
+	void finishedResultIsServedFromRedis() {
+		Response cached = response(Verdict.AC);
+		when(values.get("result:key")).thenReturn(cached);
+
+		ResultCache.Claim claim = cache.claim("key");
+
+		assertFalse(claim.leader());
+		assertSame(cached, claim.result().join());
+		assertEquals(0, cache.getInFlightCount());
+	}
+
+	@Test
+	void internalErrorsAndTimeLimitsAreSharedButNotCached() {
+		for (Verdict verdict : new Verdict[]{Verdict.IE, Verdict.TLE}) {
+			ResultCache.Claim leader = cache.claim(verdict.name());
+			ResultCache.Claim follower = cache.claim(verdict.name());
+			cache.complete(leader, response(verdict));
+
+			assertEquals(verdict, follower.result().join().getVerdict());
+			assertTrue(cache.claim(verdict.name()).leader());
+		}
+		verify(values, never()).set(anyString(), any(), any(Duration.class));
+	}
+
+	@Test
+	void runtimeErrorsCausedByTheEnvironmentAreNotCached() {
+		Response jvmInitFailure = response(Verdict.RE);
+		jvmInitFailure.setErrorType(RuntimeErrorType.JVM_INIT_FAILURE);
+		Response killed = response(Verdict.MLE);
+		killed.setErrorType(RuntimeErrorType.KILLED_BY_SIGNAL);
+		Response uncaught = response(Verdict.RE);
+		uncaught.setErrorType(RuntimeErrorType.UNCAUGHT_EXCEPTION);
+
+		cache.complete(cache.claim("jvm"), jvmInitFailure);
+		cache.complete(cache.claim("killed"), killed);
+		cache.complete(cache.claim("uncaught"), uncaught);
+
+		verify(values, never()).set(eq("result:jvm"), any(), any(Duration.class));
+		verify(values, never()).set(eq("result:killed"), any(), any(Duration.class));
+		verify(values).set("result:uncaught", uncaught, Duration.ofMinutes(30));
+	}
+
+	@Test
+	void resultIsStoredBeforeItLeavesTheInFlightMap() {
+		ResultCache.Claim leader = cache.claim("key");
+		AtomicInteger inFlightWhenStored = new AtomicInteger(-1);
+		doAnswer(invocation -> {
+			inFlightWhenStored.set(cache.getInFlightCount());
+			return null;
+		}).when(values).set(anyString(), any(), any(Duration.class));
+
+		cache.complete(leader, response(Verdict.AC));
+
+		assertEquals(1, inFlightWhenStored.get());
+		assertEquals(0, cache.getInFlightCount());
+	}
+
+	@Test
+	void abandonedExecutionFailsTheWaitingSubmissionsAndFreesTheKey() {
+		ResultCache.Claim leader = cache.claim("key");
+		ResultCache.Claim follower = cache.claim("key");
+
+		cache.complete(leader, null);
+
+		CompletionException error = assertThrows(CompletionException.class, () -> follower.result().join());
+		assertEquals("Execution abandoned", error.getCause().getMessage());
+		assertEquals(0, cache.getInFlightCount());
+		assertTrue(cache.claim("key").leader());
+		verify(values, never()).set(anyString(), any(), any(Duration.class));
+	}
+
+	@Test
+	void redisFailureFallsBackToExecuting() {
+		when(values.get("result:key")).thenThrow(new IllegalStateException("Redis unavailable"));
+		doThrow(new IllegalStateException("Redis unavailable")).when(values).set(anyString(), any(), any(Duration.class));
+
+		ResultCache.Claim claim = cache.claim("key");
+		assertTrue(claim.leader());
+
+		Response response = response(Verdict.AC);
+		cache.complete(claim, response);
+
+		assertSame(response, claim.result().join());
+		assertEquals(0, cache.getInFlightCount());
+	}
+
+	@Test
+	void unsharedSubmissionsAlwaysLead() {
+		ResultCache.Claim first = cache.claim(null);
+		ResultCache.Claim second = cache.claim(null);
+
+		assertTrue(first.leader());
+		assertTrue(second.leader());
+		assertNull(first.key());
+		assertEquals(0, cache.getInFlightCount());
+
+		ReflectionTestUtils.setField(cache, "enabled", false);
+		assertTrue(cache.claim("key").leader());
+		assertTrue(cache.claim("key").leader());
+	}
+
+	private Response response(Verdict verdict) {
+		Response response = new Response();
+		response.setVerdict(verdict);
+		return response;
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.executor.service;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.Verdict;
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.Response;
+import com.example.executor.utility.ResponseManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultPublisherTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+
+	private ResultPublisher publisher;
+
+	@BeforeEach
+	void setUp() {
+		publisher = new ResultPublisher(kafkaTemplate, objectMapper, new ResponseManager(),
+				new ExecutionMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(publisher, "publishAttempts", 3);
+	}
+
+	@Test
+	void publishesKeyedBySubmissionWithoutChangingTheSharedResult() throws Exception {
+		when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(acknowledged());
+		Response shared = response(Verdict.WA);
+
+		assertTrue(publisher.publish(submission("1"), shared).join());
+		assertTrue(publisher.publish(submission("2"), shared).join());
+
+		ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+		verify(kafkaTemplate).send(eq(ExecutorConstants.KAFKA_TOPIC_RESULTS), eq("2"), payload.capture());
+		JsonNode published = objectMapper.readTree(payload.getValue());
+		assertEquals("2", published.get("submissionId").asText());
+		assertEquals("user-2", published.get("userId").asText());
+		assertEquals("WA", published.get("verdict").asText());
+		assertNull(shared.getSubmissionId());
+	}
+
+	@Test
+	void retriesAFailedSendUntilTheBrokerAcknowledges() {
+		when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+				.thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker unavailable")))
+				.thenThrow(new KafkaException("Metadata not available"))
+				.thenReturn(acknowledged());
+
+		assertTrue(publisher.publish(submission("1"), response(Verdict.AC)).join());
+		verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any(byte[].class));
+	}
+
+	@Test
+	void givesUpAfterTheLastAttempt() {
+		when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+				.thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker unavailable")));
+
+		assertFalse(publisher.publish(submission("1"), response(Verdict.AC)).join());
+		verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any(byte[].class));
+	}
+
+	@Test
+	void doesNotSendAResultThatCannotBeSerialized() throws Exception {
+		ObjectMapper failingMapper = mock(ObjectMapper.class);
+		when(failingMapper.writeValueAsBytes(any())).thenThrow(new JsonProcessingException("Not serializable") {
+		});
+		publisher = new ResultPublisher(kafkaTemplate, failingMapper, new ResponseManager(),
+				new ExecutionMetrics(new SimpleMeterRegistry()));
+
+		assertFalse(publisher.publish(submission("1"), response(Verdict.AC)).join());
+		verify(kafkaTemplate, never()).send(anyString(), anyString(), any(byte[].class));
+	}
+
+	private CompletableFuture<SendResult<String, byte[]>> acknowledged() {
+		RecordMetadata metadata = new RecordMetadata(new TopicPartition(ExecutorConstants.KAFKA_TOPIC_RESULTS, 0), 0, 0, 0, 0, 0);
+		return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(ExecutorConstants.KAFKA_TOPIC_RESULTS, new byte[0]), metadata));
+	}
+
+	private ExecutorInput submission(String submissionId) {
+		ExecutorInput executorInput = new ExecutorInput();
+		executorInput.setSubmissionId(submissionId);
+		executorInput.setUserId("user-" + submissionId);
+		executorInput.setProblemId(7L);
+		executorInput.setLanguage("java");
+		executorInput.setProblemName("sum");
+		return executorInput;
+	}
+
+	private Response response(Verdict verdict) {
+		Response response = new Response();
+		response.setVerdict(verdict);
+		return response;
+	}
+}
@@ -0,0 +1,264 @@
+package com.example.executor.service;
+
+import com.example.executor.model.ExecutorInput;
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.TestManifest;
+import com.example.executor.utility.BoxIdPool;
+import com.example.executor.utility.ConcurrencyController;
+import com.example.executor.utility.ExecutionMetrics;
+import com.example.executor.utility.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubmissionPipelineTests {
+
+	private final ExecutorService executorService = mock(ExecutorService.class);
+	private final ResultPublisher resultPublisher = mock(ResultPublisher.class);
+	private final BoxIdPool boxIdPool = mock(BoxIdPool.class);
+	private final ResultCache resultCache = mock(ResultCache.class);
+	private final ConcurrencyController concurrencyController = mock(ConcurrencyController.class);
+
+	// Submission IDs in claim order, with the queued count seen by each claim
+	private final List<String> claimed = new ArrayList<>();
+	private final List<Integer> queuedAtClaim = new ArrayList<>();
+	private final Map<String, AtomicInteger> fetchedBatches = new ConcurrentHashMap<>();
+	private final List<Acknowledgment> acknowledgments = new ArrayList<>();
+	private final Response internalError = new Response();
+
+	private SubmissionPipeline pipeline;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		pipeline = new SubmissionPipeline(executorService, resultPublisher, boxIdPool, mock(KafkaListenerEndpointRegistry.class),
+				mock(ExecutionMetrics.class), resultCache, concurrencyController);
+		ReflectionTestUtils.setField(pipeline, "queueCapacity", 64);
+		ReflectionTestUtils.setField(pipeline, "batchEnabled", true);
+		ReflectionTestUtils.setField(pipeline, "batchMaxSize", 16);
+		ReflectionTestUtils.setField(pipeline, "publishRetries", 2);
+		ReflectionTestUtils.setField(pipeline, "publishBackoffMillis", 1L);
+		ReflectionTestUtils.setField(pipeline, "publishBackoffMaxMillis", 10L);
+
+		when(executorService.resultKey(any(), any())).thenAnswer(invocation -> invocation.<ExecutorInput>getArgument(0).getSubmissionId());
+		when(executorService.testCount(any(), any())).thenReturn(4);
+		when(executorService.execute(any(), anyString(), any())).thenReturn(new Response());
+		when(resultCache.claim(anyString())).thenAnswer(invocation -> {
+			claimed.add(invocation.getArgument(0));
+			queuedAtClaim.add(pipeline.getQueuedCount());
+			return new ResultCache.Claim(null, true, new CompletableFuture<>());
+		});
+		when(boxIdPool.acquire()).thenReturn("0");
+		when(executorService.internalError(any(), anyString())).thenReturn(internalError);
+		when(resultPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
+	}
+
+	@AfterEach
+	void tearDown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	void groupsByProblemAndLanguageInArrivalOrder() {
+		List<SubmissionPipeline.Submission> batch = List.of(submission("a", "java", "1"), submission("b", "java", "2"),
+				submission("a", "js", "3"), submission("a", "Java", "4"));
+
+		Collection<List<SubmissionPipeline.Submission>> groups = SubmissionPipeline.group(batch);
+
+		assertEquals(List.of(List.of("1", "4"), List.of("2"), List.of("3")), groups.stream()
+				.map(group -> group.stream().map(member -> member.executorInput().getSubmissionId()).toList())
+				.toList());
+	}
+
+	@Test
+	void dispatchesGroupsTogetherAndPrefetchesTheirFirstBatchOnce() {
+		stubTestData("a", false);
+		stubTestData("b", false);
+		enqueue("a", "1");
+		enqueue("b", "2");
+		enqueue("a", "3");
+
+		pipeline.initialize();
+		acknowledgments.forEach(acknowledgment -> verify(acknowledgment, timeout(5000)).acknowledge());
+
+		assertEquals(List.of("1", "3", "2"), claimed);
+		assertEquals(List.of(3, 2, 1), queuedAtClaim);
+		assertEquals(0, pipeline.getQueuedCount());
+		// One batch of inputs and one of outputs for the group of two, nothing for the single submission
+		assertEquals(2, fetchedBatches.get("a").get());
+		assertEquals(0, fetchedBatches.get("b").get());
+		verify(concurrencyController, times(3)).release(anyLong());
+	}
+
+	@Test
+	void runsTheGroupWhenPrefetchingFails() {
+		stubTestData("a", true);
+		enqueue("a", "1");
+		enqueue("a", "2");
+
+		pipeline.initialize();
+		acknowledgments.forEach(acknowledgment -> verify(acknowledgment, timeout(5000)).acknowledge());
+
+		verify(executorService, times(2)).execute(any(), anyString(), any());
+		assertEquals(0, pipeline.getQueuedCount());
+	}
+
+	@Test
+	void publishesAnUndeliveredResultAgainWithoutRunningItAgain() {
+		stubTestData("a", false);
+		when(resultPublisher.publish(any(), any()))
+				.thenReturn(CompletableFuture.completedFuture(false), CompletableFuture.completedFuture(true));
+		enqueue("a", "1");
+
+		pipeline.initialize();
+		verify(acknowledgments.get(0), timeout(5000)).acknowledge();
+
+		assertEquals(List.of("1"), claimed);
+		verify(executorService, times(1)).execute(any(), anyString(), any());
+		verify(resultPublisher, times(2)).publish(any(), any());
+	}
+
+	@Test
+	void acknowledgesAResultThatIsStillUndeliveredAfterTheLastRetry() {
+		stubTestData("a", false);
+		when(resultPublisher.publish(any(), any())).thenReturn(CompletableFuture.completedFuture(false));
+		enqueue("a", "1");
+
+		pipeline.initialize();
+		verify(acknowledgments.get(0), timeout(5000)).acknowledge();
+
+		verify(resultPublisher, times(3)).publish(any(), any());
+		verify(executorService, times(1)).execute(any(), anyString(), any());
+		assertEquals(0, pipeline.getQueuedCount());
+	}
+
+	@Test
+	void sharesTheResultOfAnIdenticalSubmissionWithoutRunningIt() throws Exception {
+		stubTestData("a", false);
+		Response shared = new Response();
+		doAnswer(invocation -> {
+			claimed.add(invocation.getArgument(0));
+			return "2".equals(invocation.getArgument(0))
+					? new ResultCache.Claim("2", false, CompletableFuture.completedFuture(shared))
+					: new ResultCache.Claim(null, true, new CompletableFuture<>());
+		}).when(resultCache).claim(anyString());
+		enqueue("a", "1");
+		enqueue("a", "2");
+
+		pipeline.initialize();
+		acknowledgments.forEach(acknowledgment -> verify(acknowledgment, timeout(5000)).acknowledge());
+
+		verify(executorService, times(1)).execute(any(), anyString(), any());
+		verify(resultPublisher).publish(argThat(input -> "2".equals(input.getSubmissionId())), same(shared));
+		verify(boxIdPool, times(1)).acquire();
+	}
+
+	@Test
+	void runsASubmissionItselfWhenTheExecutionItJoinedIsAbandoned() {
+		stubTestData("a", false);
+		AtomicInteger claims = new AtomicInteger();
+		doAnswer(invocation -> {
+			claimed.add(invocation.getArgument(0));
+			return claims.getAndIncrement() == 0
+					? new ResultCache.Claim("1", false, CompletableFuture.failedFuture(new IllegalStateException("Execution abandoned")))
+					: new ResultCache.Claim(null, true, new CompletableFuture<>());
+		}).when(resultCache).claim(anyString());
+		enqueue("a", "1");
+
+		pipeline.initialize();
+		verify(acknowledgments.get(0), timeout(5000)).acknowledge();
+
+		assertEquals(List.of("1", "1"), claimed);
+		verify(executorService, times(1)).execute(any(), anyString(), any());
+	}
+
+	@Test
+	void keepsDispatchingAfterAGroupOrSubmissionFails() {
+		when(executorService.testData(argThat(input -> input != null && "a".equals(input.getProblemName()))))
+				.thenThrow(new IllegalStateException("Redis unavailable"));
+		stubTestData("b", false);
+		doThrow(new IllegalStateException("Digest unavailable")).when(executorService)
+				.resultKey(argThat(input -> input != null && "3".equals(input.getSubmissionId())), any());
+		enqueue("a", "1");
+		enqueue("b", "2");
+		enqueue("b", "3");
+		enqueue("b", "4");
+
+		pipeline.initialize();
+		acknowledgments.forEach(acknowledgment -> verify(acknowledgment, timeout(5000)).acknowledge());
+
+		verify(executorService, times(2)).execute(any(), anyString(), any());
+		verify(resultPublisher).publish(argThat(input -> "1".equals(input.getSubmissionId())), same(internalError));
+		verify(resultPublisher).publish(argThat(input -> "3".equals(input.getSubmissionId())), same(internalError));
+		assertEquals(0, pipeline.getQueuedCount());
+	}
+
+	@Test
+	void publishesAnInternalErrorWhenTheExecutionFails() throws Exception {
+		stubTestData("a", false);
+		when(executorService.execute(any(), anyString(), any())).thenThrow(new IllegalStateException("Box vanished"));
+		enqueue("a", "1");
+
+		pipeline.initialize();
+		verify(acknowledgments.get(0), timeout(5000)).acknowledge();
+
+		verify(resultPublisher).publish(any(), same(internalError));
+		verify(boxIdPool).release("0");
+		verify(concurrencyController).release(anyLong());
+		verify(resultCache).complete(any(), isNull());
+	}
+
+	private void stubTestData(String problemName, boolean failing) {
+		AtomicInteger fetched = fetchedBatches.computeIfAbsent(problemName, name -> new AtomicInteger());
+		TestManifest manifest = new TestManifest("v1", 8, 0, new int[8], new int[8], new long[8], new long[8], null);
+		ProblemTestData testData = new ProblemTestData(problemName, manifest, 0, 2, (m, inputs, from, to) -> {
+			if (failing) {
+				throw new IllegalStateException("Redis unavailable");
+			}
+			fetched.incrementAndGet();
+			return IntStream.range(from, to).mapToObj(String::valueOf).toList();
+		});
+		when(executorService.testData(argThat(input -> input != null
+				&& problemName.equals(input.getProblemName())))).thenReturn(testData);
+	}
+
+	private void enqueue(String problemName, String submissionId) {
+		SubmissionPipeline.Submission submission = submission(problemName, "java", submissionId);
+		acknowledgments.add(submission.acknowledgment());
+		pipeline.onSubmission(submission.executorInput(), submission.acknowledgment());
+	}
+
+	private SubmissionPipeline.Submission submission(String problemName, String language, String submissionId) {
+		ExecutorInput executorInput = new ExecutorInput();
+		executorInput.setProblemName(problemName);
+		executorInput.setLanguage(language);
+		executorInput.setSubmissionId(submissionId);
+		return new SubmissionPipeline.Submission(executorInput, mock(Acknowledgment.class));
+	}
+}
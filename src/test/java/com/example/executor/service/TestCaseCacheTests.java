@@ -0,0 +1,151 @@
+package com.example.executor.service;
+
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.TestManifest;
+import com.example.executor.utility.TestCaseCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestCaseCacheTests {
+
+	// Size the cache accounts for a problem with a single empty test
+	private static final long ENTRY_BYTES = 128;
+
+	@SuppressWarnings("unchecked")
+	private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final RedisTemplate<String, byte[]> binaryRedisTemplate = mock(RedisTemplate.class);
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, Object> values = mock(ValueOperations.class);
+	@SuppressWarnings("unchecked")
+	private final HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
+
+	private TestCaseCache cache;
+
+	@BeforeEach
+	void setUp() {
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		when(binaryRedisTemplate.opsForHash()).thenReturn(hashes);
+		doReturn(RedisSerializer.string()).when(redisTemplate).getValueSerializer();
+
+		cache = new TestCaseCache(redisTemplate, binaryRedisTemplate, mock(RedisConnectionFactory.class));
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxBytes", 2 * ENTRY_BYTES);
+		ReflectionTestUtils.setField(cache, "revalidateSeconds", 60L);
+		ReflectionTestUtils.setField(cache, "fetchBatch", 16);
+	}
+
+	@Test
+	void servesCachedDataUntilAnUpdateChangesItsVersion() {
+		storeManifest("sum", "v1");
+		ProblemTestData first = cache.get("sum");
+
+		cache.onMessage(update("sum:v1"), null);
+		assertSame(first, cache.get("sum"));
+
+		storeManifest("sum", "v2");
+		cache.onMessage(update("sum:v2"), null);
+		ProblemTestData second = cache.get("sum");
+
+		assertEquals("v2", second.getVersion());
+		verify(values, times(2)).get("problem:sum:manifest");
+		verify(values, never()).get("problem:sum:version");
+	}
+
+	@Test
+	void revalidatesAgainstTheVersionKeyOnceTheIntervalPassed() {
+		ReflectionTestUtils.setField(cache, "revalidateSeconds", 0L);
+		storeManifest("sum", "v1");
+		when(values.get("problem:sum:version")).thenReturn("v1");
+		ProblemTestData first = cache.get("sum");
+
+		assertSame(first, cache.get("sum"));
+
+		// The update message was missed; the version key still catches the change
+		storeManifest("sum", "v2");
+		when(values.get("problem:sum:version")).thenReturn("v2");
+
+		assertEquals("v2", cache.get("sum").getVersion());
+	}
+
+	@Test
+	void doesNotCacheMissingOrOversizedTestData() {
+		assertNull(cache.get("missing"));
+
+		ReflectionTestUtils.setField(cache, "maxBytes", ENTRY_BYTES - 1);
+		storeManifest("sum", "v1");
+		ProblemTestData first = cache.get("sum");
+
+		assertNotSame(first, cache.get("sum"));
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedProblem() {
+		storeManifest("a", "v1");
+		storeManifest("b", "v1");
+		storeManifest("c", "v1");
+		cache.get("a");
+		cache.get("b");
+		cache.get("a");
+
+		cache.get("c");
+
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(2 * ENTRY_BYTES, cache.getTotalBytes());
+		cache.get("a");
+		cache.get("b");
+		verify(values, times(1)).get("problem:a:manifest");
+		verify(values, times(2)).get("problem:b:manifest");
+	}
+
+	@Test
+	void failsWhenATestOfTheVersionIsNoLongerInRedis() {
+		storeManifest("sum", "v1", 2);
+		when(hashes.multiGet(anyString(), anyList())).thenReturn(Arrays.asList(TestCaseCodec.compress(new byte[0]), null));
+		ProblemTestData testData = cache.get("sum");
+
+		assertThrows(IllegalStateException.class, () -> testData.getInput(0));
+		verify(hashes).multiGet("problem:sum:tests:v1", List.of("in:0", "in:1"));
+	}
+
+	private void storeManifest(String problemName, String version) {
+		storeManifest(problemName, version, 1);
+	}
+
+	private void storeManifest(String problemName, String version, int testCount) {
+		TestManifest manifest = new TestManifest(version, testCount, 0, new int[testCount], new int[testCount],
+				new long[testCount], new long[testCount], null);
+		when(values.get("problem:" + problemName + ":manifest")).thenReturn(manifest);
+	}
+
+	private DefaultMessage update(String body) {
+		return new DefaultMessage("problem-updates".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.executor.service;
+
+import com.example.executor.model.ProblemTestData;
+import com.example.executor.model.TestManifest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestInputStoreTests {
+
+	@TempDir
+	Path storeDir;
+
+	private TestInputStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new TestInputStore();
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "storeDir", storeDir.toString());
+		ReflectionTestUtils.setField(store, "versionsPerProblem", 1);
+		store.initialize();
+	}
+
+	@Test
+	void writesOnlyTheRequestedInputs() {
+		AtomicInteger fetchedInputs = new AtomicInteger();
+		ProblemTestData testData = testData("v1", 10, fetchedInputs);
+		Path versionDir = store.materialize(testData);
+
+		assertTrue(store.storeInputs(versionDir, testData, 0, 2));
+		assertTrue(store.storeInputs(versionDir, testData, 1, 2));
+
+		assertEquals(2, fetchedInputs.get());
+		assertTrue(Files.exists(versionDir.resolve(store.inputFileName(1))));
+		assertFalse(Files.exists(versionDir.resolve(store.inputFileName(2))));
+	}
+
+	@Test
+	void concurrentCallersShareOneDirectoryAndOldVersionsArePruned() {
+		ProblemTestData first = testData("v1", 2, new AtomicInteger());
+		List<CompletableFuture<Path>> dirs = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			dirs.add(CompletableFuture.supplyAsync(() -> store.materialize(first)));
+		}
+		Path firstDir = dirs.get(0).join();
+		dirs.forEach(dir -> assertEquals(firstDir, dir.join()));
+
+		Path secondDir = store.materialize(testData("v2", 2, new AtomicInteger()));
+
+		assertTrue(Files.isDirectory(secondDir));
+		assertFalse(Files.exists(firstDir));
+	}
+
+	@Test
+	void deletesStagingFilesLeftByACrashedProcess() throws Exception {
+		Path versionDir = Files.createDirectories(storeDir.resolve("sum").resolve("v1"));
+		Path leftAtStartup = staleStagingFile(versionDir, ".tmp-crashed");
+		store.initialize();
+		assertFalse(Files.exists(leftAtStartup));
+
+		Path leftSinceStartup = staleStagingFile(versionDir, ".tmp-crashed-again");
+		assertEquals(versionDir, store.materialize(testData("v1", 2, new AtomicInteger())));
+		assertFalse(Files.exists(leftSinceStartup));
+	}
+
+	private Path staleStagingFile(Path dir, String name) throws Exception {
+		Path file = Files.writeString(dir.resolve(name), "input");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+		return file;
+	}
+
+	private ProblemTestData testData(String version, int testCount, AtomicInteger fetchedInputs) {
+		TestManifest manifest = new TestManifest(version, testCount, 0, new int[testCount], new int[testCount],
+				new long[testCount], new long[testCount], null);
+		return new ProblemTestData("sum", manifest, 0, 1, (m, inputs, from, to) -> {
+			if (inputs) {
+				fetchedInputs.addAndGet(to - from);
+			}
+			return IntStream.range(from, to).mapToObj(i -> "input " + i).toList();
+		});
+	}
+}
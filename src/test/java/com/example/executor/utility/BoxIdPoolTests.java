@@ -0,0 +1,112 @@
+package com.example.executor.utility;
+
+import com.example.executor.constants.ExecutorConstants;
+import com.example.executor.enums.BoxState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoxIdPoolTests {
+
+	private final FakeIsolate isolate = new FakeIsolate();
+	private BoxIdPool pool;
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	void releasedBoxIsCleanedAndHandedOutWarmFirst() throws Exception {
+		createPool(0);
+
+		assertEquals("0", pool.acquire());
+		pool.release("0");
+		await(() -> pool.getAvailableCount() == ExecutorConstants.MAX_BOX_ID);
+
+		assertEquals("0", pool.acquire());
+		// Cold init on the first acquire, then cleanup and init in the background; the second acquire runs nothing
+		assertEquals(List.of("0 --init", "0 --cleanup", "0 --init"), isolate.commands);
+	}
+
+	@Test
+	void boxWhoseCleanupFailsIsQuarantinedUntilRetried() throws Exception {
+		createPool(0);
+		isolate.failing.add("0 --cleanup");
+
+		assertEquals("0", pool.acquire());
+		pool.release("0");
+		await(() -> pool.getQuarantinedBoxIds().equals(List.of("0")));
+		assertEquals("1", pool.tryAcquire());
+
+		isolate.failing.clear();
+		pool.retryQuarantined("0");
+		await(() -> pool.getAvailableCount() == ExecutorConstants.MAX_BOX_ID - 1);
+
+		assertTrue(pool.getQuarantinedBoxIds().isEmpty());
+		assertEquals("0", pool.tryAcquire());
+	}
+
+	@Test
+	void boxThatFailsToInitializeOnAcquireIsQuarantined() throws Exception {
+		createPool(0);
+		isolate.failing.add("0 --init");
+
+		assertEquals("1", pool.acquire());
+		assertEquals(List.of("0"), pool.getQuarantinedBoxIds());
+		assertEquals(1, (int) pool.getStateCounts().get(BoxState.IN_USE));
+	}
+
+	@Test
+	void failedCleanupDuringWarmUpIsNotFatal() throws Exception {
+		isolate.failing.add("0 --cleanup");
+		createPool(1);
+
+		await(() -> pool.getAvailableCount() == ExecutorConstants.MAX_BOX_ID);
+
+		assertTrue(pool.getQuarantinedBoxIds().isEmpty());
+		assertEquals("0", pool.tryAcquire());
+	}
+
+	private void createPool(int warmSize) {
+		pool = new BoxIdPool(new ExecutionMetrics(new SimpleMeterRegistry()), isolate);
+		ReflectionTestUtils.setField(pool, "warmSize", warmSize);
+		ReflectionTestUtils.setField(pool, "cleanupThreads", 1);
+		ReflectionTestUtils.setField(pool, "isolatePath", "isolate");
+		pool.initialize();
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the box pool");
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Records isolate commands as "boxId action" and fails the listed ones.
+	 */
+	private static class FakeIsolate extends ProcessRunner {
+
+		final List<String> commands = new CopyOnWriteArrayList<>();
+		final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public Result run(String... command) {
+			String call = command[1].substring("--box-id=".length()) + " " + command[2];
+			commands.add(call);
+			return new Result(failing.contains(call) ? 2 : 0, new byte[0], new byte[0], false, false);
+		}
+	}
+}
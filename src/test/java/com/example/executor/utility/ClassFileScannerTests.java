@@ -0,0 +1,56 @@
+package com.example.executor.utility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassFileScannerTests {
+
+	private static final Set<String> DESCRIPTORS = Set.of("in", "out");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void findsFieldReferencesPastWideConstants() throws Exception {
+		byte[] classFile = compile("public class Main {\n"
+				+ "    public static void main(String[] a) throws Exception {\n"
+				+ "        long big = 1L << 40; double half = 0.5 * a.length;\n"
+				+ "        new java.io.FileOutputStream(java.io.FileDescriptor.out).write((int) (big + half));\n"
+				+ "    }\n"
+				+ "}\n");
+
+		assertTrue(ClassFileScanner.referencesField(classFile, "java/io/FileDescriptor", DESCRIPTORS));
+		assertFalse(ClassFileScanner.referencesField(classFile, "java/io/FileDescriptor", Set.of("err")));
+	}
+
+	@Test
+	void ignoresSameNamedFieldsOfOtherClasses() throws Exception {
+		byte[] classFile = compile("public class Main { public static void main(String[] a) { System.out.println(System.in); } }");
+
+		assertFalse(ClassFileScanner.referencesField(classFile, "java/io/FileDescriptor", DESCRIPTORS));
+		assertTrue(ClassFileScanner.referencesField(classFile, "java/lang/System", DESCRIPTORS));
+	}
+
+	@Test
+	void rejectsMalformedClassFiles() {
+		assertThrows(IllegalArgumentException.class,
+				() -> ClassFileScanner.referencesField(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0}, "A", DESCRIPTORS));
+	}
+
+	private byte[] compile(String source) throws Exception {
+		Path file = dir.resolve("Main.java");
+		Files.writeString(file, source);
+		assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", dir.toString(), file.toString()));
+		return Files.readAllBytes(dir.resolve("Main.class"));
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.executor.utility;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyControllerTests {
+
+	private ConcurrencyController controller;
+
+	@BeforeEach
+	void setUp() {
+		controller = new ConcurrencyController(new ExecutionMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(controller, "minLimit", 2);
+		ReflectionTestUtils.setField(controller, "maxLimit", 16);
+		ReflectionTestUtils.setField(controller, "cpuPressureThreshold", 25.0);
+		ReflectionTestUtils.setField(controller, "memoryPressureThreshold", 5.0);
+		ReflectionTestUtils.setField(controller, "memoryReserveMb", 512.0);
+		ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+	}
+
+	@Test
+	void growsAdditivelyOnlyUnderDemandAndWithHeadroom() {
+		ConcurrencyController.Sample calm = new ConcurrencyController.Sample(1, 0, 8192, 256);
+
+		assertEquals(9, controller.decide(8, true, calm).limit());
+		assertEquals(8, controller.decide(8, false, calm).limit());
+		assertEquals(16, controller.decide(16, true, calm).limit());
+		assertEquals(8, controller.decide(8, true, new ConcurrencyController.Sample(1, 0, 700, 256)).limit());
+		assertEquals(9, controller.decide(8, true, new ConcurrencyController.Sample(0, 0, Double.NaN, 0)).limit());
+	}
+
+	@Test
+	void shrinksMultiplicativelyUnderPressureDownToMinimum() {
+		assertEquals(ConcurrencyController.DECREASE, controller.decide(8, true, new ConcurrencyController.Sample(40, 0, 8192, 256)).action());
+		assertEquals(4, controller.decide(8, true, new ConcurrencyController.Sample(40, 0, 8192, 256)).limit());
+		assertEquals(4, controller.decide(8, true, new ConcurrencyController.Sample(0, 10, 8192, 256)).limit());
+		assertEquals(4, controller.decide(8, false, new ConcurrencyController.Sample(0, 0, 100, 256)).limit());
+		assertEquals(2, controller.decide(2, true, new ConcurrencyController.Sample(90, 90, 100, 256)).limit());
+	}
+
+	@Test
+	void memoryBudgetLimitsReservedBoxes() throws InterruptedException {
+		ReflectionTestUtils.setField(controller, "limit", 8);
+		ReflectionTestUtils.setField(controller, "memoryBudgetMb", 1024L);
+
+		controller.acquire(512 * 1024);
+		assertTrue(controller.tryAcquire(256 * 1024));
+		assertFalse(controller.tryAcquire(512 * 1024));
+		controller.acquire(256 * 1024);
+		assertEquals(1024 * 1024, controller.getReservedKb());
+
+		controller.release(512 * 1024);
+		assertTrue(controller.tryAcquire(512 * 1024));
+		assertEquals(3, controller.getRunning());
+	}
+
+	@Test
+	void shardBoxesCountTowardTheLimit() throws InterruptedException {
+		ReflectionTestUtils.setField(controller, "limit", 2);
+
+		controller.acquire(1024);
+		assertTrue(controller.tryAcquire(1024));
+		assertFalse(controller.tryAcquire(1024));
+		assertEquals(2, controller.getRunning());
+
+		controller.release(1024);
+		assertTrue(controller.tryAcquire(1024));
+	}
+
+	@Test
+	void parsesPsiLine() {
+		assertEquals(12.5, ConcurrencyController.parseAvg10("some avg10=12.50 avg60=3.00 avg300=1.00 total=123456"), 1e-9);
+	}
+}
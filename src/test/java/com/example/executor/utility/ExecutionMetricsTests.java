@@ -0,0 +1,60 @@
+package com.example.executor.utility;
+
+import com.example.executor.enums.Verdict;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExecutionMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private ExecutionMetrics metrics;
+
+	@BeforeEach
+	void setUp() {
+		metrics = new ExecutionMetrics(registry);
+		ReflectionTestUtils.setField(metrics, "problemTagEnabled", true);
+		metrics.setKnownProblems(Set.of("sum")::contains);
+	}
+
+	@Test
+	void knownLanguagesAndProblemsAreTaggedByName() {
+		metrics.countVerdict(Verdict.AC, "Java", "sum");
+		metrics.countVerdict(Verdict.AC, "js", "sum");
+		metrics.countVerdict(Verdict.AC, "javascript", "sum");
+
+		assertEquals(1, count("java", "sum"));
+		assertEquals(2, count("javascript", "sum"));
+	}
+
+	@Test
+	void unknownLanguagesAndProblemsShareOneSeries() {
+		metrics.countVerdict(Verdict.AC, "cobol", "sum");
+		metrics.countVerdict(Verdict.AC, "java", "../../etc/passwd");
+		metrics.countVerdict(Verdict.AC, "pascal", "random-" + System.nanoTime());
+
+		assertEquals(1, count("other", "sum"));
+		assertEquals(1, count("java", "other"));
+		assertEquals(1, count("other", "other"));
+		assertEquals(3, registry.find("executor.verdicts").counters().size());
+	}
+
+	@Test
+	void problemTagCanBeDropped() {
+		ReflectionTestUtils.setField(metrics, "problemTagEnabled", false);
+
+		metrics.countVerdict(Verdict.AC, "java", "sum");
+		metrics.countVerdict(Verdict.AC, "java", "unknown");
+
+		assertEquals(2, count("java", "all"));
+	}
+
+	private double count(String language, String problem) {
+		return registry.get("executor.verdicts").tags("language", language, "problem", problem).counter().count();
+	}
+}
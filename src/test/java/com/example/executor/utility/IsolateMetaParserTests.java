@@ -0,0 +1,50 @@
+package com.example.executor.utility;
+
+import com.example.executor.model.IsolateMeta;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsolateMetaParserTests {
+
+	@Test
+	void parsesAllFields() {
+		IsolateMeta meta = parse("time:1.250\ntime-wall:2.003\nmax-rss:2048\ncg-mem:51200\nstatus:TO\nkilled:1\nmessage:Time limit exceeded\n");
+
+		assertEquals(1250.0, meta.getRuntime(), 1e-9);
+		assertEquals(2003.0, meta.getWallTime(), 1e-9);
+		assertEquals(50.0, meta.getMemory(), 1e-9);
+		assertEquals("TO", meta.getStatus());
+		assertTrue(meta.isKilled());
+	}
+
+	@Test
+	void fallsBackToMaxRssAndResetsReusedInstance() {
+		IsolateMeta meta = parse("status:SG\nexitsig:11\n");
+		byte[] next = bytes("time:0.1\nmax-rss:1024\nexitcode:3\n");
+		IsolateMetaParser.parse(next, next.length, meta);
+
+		assertEquals(100.0, meta.getRuntime(), 1e-9);
+		assertEquals(1.0, meta.getMemory(), 1e-9);
+		assertEquals(3, meta.getExitCode());
+		assertEquals(0, meta.getExitSignal());
+		assertNull(meta.getStatus());
+		assertFalse(meta.isKilled());
+	}
+
+	private IsolateMeta parse(String content) {
+		IsolateMeta meta = new IsolateMeta();
+		byte[] data = bytes(content);
+		IsolateMetaParser.parse(data, data.length, meta);
+		return meta;
+	}
+
+	private byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.US_ASCII);
+	}
+}
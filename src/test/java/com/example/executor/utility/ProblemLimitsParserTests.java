@@ -0,0 +1,49 @@
+package com.example.executor.utility;
+
+import com.example.executor.model.ProblemLimits;
+import com.example.executor.model.ResourceLimits;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProblemLimitsParserTests {
+
+	@Test
+	void languageOverridesProblemLimitsWhichOverrideDefaults() {
+		ProblemLimits limits = ProblemLimitsParser.parse("""
+				time-ms: 500
+				memory-mb: 16
+				languages:
+				  java:
+				    memory-mb: 256
+				    heap-mb: 96
+				  js:
+				    time-ms: 1500
+				""");
+
+		ResourceLimits java = limits.resolve("Java");
+		assertEquals(500, java.timeMillis());
+		assertEquals(ResourceLimits.DEFAULT.wallTimeMillis(), java.wallTimeMillis());
+		assertEquals(256 * 1024, java.memoryKb());
+		assertEquals(96, java.heapMb());
+
+		ResourceLimits javascript = limits.resolve("javascript");
+		assertEquals(1500, javascript.timeMillis());
+		assertEquals(16 * 1024, javascript.memoryKb());
+		assertEquals(ResourceLimits.DEFAULT.processes(), javascript.processes());
+	}
+
+	@Test
+	void emptyFileKeepsDefaults() {
+		assertEquals(ResourceLimits.DEFAULT, ProblemLimitsParser.parse("").resolve("java"));
+	}
+
+	@Test
+	void rejectsUnknownKeysAndNonPositiveValues() {
+		assertThrows(IllegalArgumentException.class, () -> ProblemLimitsParser.parse("time: 1000\n"));
+		assertThrows(IllegalArgumentException.class, () -> ProblemLimitsParser.parse("memory-mb: 0\n"));
+		assertThrows(IllegalArgumentException.class, () -> ProblemLimitsParser.parse("languages:\n  java:\n    languages: {}\n"));
+		assertThrows(IllegalArgumentException.class, () -> ProblemLimitsParser.parse("time-ms: [1\n"));
+	}
+}
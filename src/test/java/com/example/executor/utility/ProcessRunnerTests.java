@@ -0,0 +1,65 @@
+package com.example.executor.utility;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessRunnerTests {
+
+	private ProcessRunner runner;
+
+	@BeforeEach
+	void setUp() {
+		runner = new ProcessRunner();
+		ReflectionTestUtils.setField(runner, "maxOutputBytes", 100_000L);
+		ReflectionTestUtils.setField(runner, "timeoutMillis", 10_000L);
+	}
+
+	@AfterEach
+	void tearDown() {
+		runner.shutdown();
+	}
+
+	@Test
+	void capturesStdoutAndStderrSeparately() throws Exception {
+		CompletableFuture<ProcessRunner.Result> first = runner.start(List.of("sh", "-c", "echo out; echo err >&2; exit 3"), null, null);
+		CompletableFuture<ProcessRunner.Result> second = runner.start(List.of("sh", "-c", "head -c 50000 /dev/zero | tr '\\0' x"), null, null);
+
+		ProcessRunner.Result result = first.get();
+		assertEquals(3, result.exitCode());
+		assertEquals("out\n", result.stdoutText());
+		assertEquals("err\n", result.stderrText());
+		assertFalse(result.succeeded());
+
+		ProcessRunner.Result large = second.get();
+		assertTrue(large.succeeded());
+		assertEquals(50_000, large.stdout().length);
+	}
+
+	@Test
+	void killsCommandsExceedingTheOutputLimit() throws Exception {
+		ProcessRunner.Result result = runner.run("sh", "-c", "yes");
+
+		assertTrue(result.outputLimitExceeded());
+		assertFalse(result.succeeded());
+		assertEquals(100_000, result.stdout().length);
+	}
+
+	@Test
+	void killsCommandsExceedingTheTimeout() throws Exception {
+		ReflectionTestUtils.setField(runner, "timeoutMillis", 200L);
+
+		ProcessRunner.Result result = runner.run("sleep", "30");
+
+		assertTrue(result.timedOut());
+		assertFalse(result.succeeded());
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.executor.utility;
+
+import com.example.executor.enums.RuntimeErrorType;
+import com.example.executor.model.IsolateMeta;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RuntimeErrorClassifierTests {
+
+	@Test
+	void classifiesOutputPatterns() {
+		assertEquals(RuntimeErrorType.NONE, RuntimeErrorClassifier.classify("1 2 3\n"));
+		assertEquals(RuntimeErrorType.JVM_INIT_FAILURE,
+				RuntimeErrorClassifier.classify("Error occurred during initialization of VM\nCould not reserve enough space"));
+		assertEquals(RuntimeErrorType.UNCAUGHT_EXCEPTION,
+				RuntimeErrorClassifier.classify("1\nException in thread \"main\" java.lang.ArithmeticException: / by zero"));
+		assertEquals(RuntimeErrorType.UNCAUGHT_EXCEPTION, RuntimeErrorClassifier.classify("java.lang.StackOverflowError"));
+		assertEquals(RuntimeErrorType.SEGMENTATION_FAULT, RuntimeErrorClassifier.classify("Segmentation fault (core dumped)"));
+		assertEquals(RuntimeErrorType.NON_ZERO_EXIT, RuntimeErrorClassifier.classify("Process exited with code: 3"));
+		assertEquals(RuntimeErrorType.NONE, RuntimeErrorClassifier.classify("Process exited with code: 0"));
+	}
+
+	@Test
+	void scansHeadAndTailOfLongOutput() {
+		String filler = "x".repeat(100_000);
+
+		assertEquals(RuntimeErrorType.UNCAUGHT_EXCEPTION, RuntimeErrorClassifier.classify(filler + "Exception in thread \"main\""));
+		assertEquals(RuntimeErrorType.NONE, RuntimeErrorClassifier.classify(filler + "Exception in thread" + filler));
+	}
+
+	@Test
+	void fallsBackToMetaStatus() {
+		assertEquals(RuntimeErrorType.SEGMENTATION_FAULT, RuntimeErrorClassifier.classify("", meta("SG", 0, 11)));
+		assertEquals(RuntimeErrorType.KILLED_BY_SIGNAL, RuntimeErrorClassifier.classify("", meta("SG", 0, 9)));
+		assertEquals(RuntimeErrorType.NON_ZERO_EXIT, RuntimeErrorClassifier.classify("42", meta("RE", 1, 0)));
+		assertEquals(RuntimeErrorType.NONE, RuntimeErrorClassifier.classify("42", meta(null, 0, 0)));
+	}
+
+	@Test
+	void classifiesOutOfMemory() {
+		assertEquals(RuntimeErrorType.OUT_OF_MEMORY,
+				RuntimeErrorClassifier.classify("Exception in thread \"main\" java.lang.OutOfMemoryError: Java heap space"));
+
+		IsolateMeta meta = meta("SG", 0, 9);
+		meta.setOomKilled(true);
+		assertEquals(RuntimeErrorType.OUT_OF_MEMORY, RuntimeErrorClassifier.classify("", meta));
+	}
+
+	private IsolateMeta meta(String status, int exitCode, int exitSignal) {
+		IsolateMeta meta = new IsolateMeta();
+		meta.setStatus(status);
+		meta.setExitCode(exitCode);
+		meta.setExitSignal(exitSignal);
+		return meta;
+	}
+}
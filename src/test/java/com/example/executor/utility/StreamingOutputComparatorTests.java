@@ -0,0 +1,50 @@
+package com.example.executor.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingOutputComparatorTests {
+
+	@Test
+	void ignoresWhitespaceLikeTheRegexNormalization() throws IOException {
+		assertTrue(compare("1 2\r\n3\n\n", "1\t2 3").isMatch());
+		assertFalse(compare("1 2", "1 2 3").isMatch());
+		assertFalse(compare("1 2 3 4", "1 2 3").isMatch());
+	}
+
+	@Test
+	void stopsAtOutputLimit() throws IOException {
+		StreamingOutputComparator comparator = StreamingOutputComparator.compare(stream("x".repeat(100)), "x".repeat(100), 10, 4);
+
+		assertTrue(comparator.isLimitExceeded());
+		assertFalse(comparator.isMatch());
+	}
+
+	@Test
+	void keepsBoundedHeadAndTail() throws IOException {
+		StreamingOutputComparator comparator = StreamingOutputComparator.compare(stream("abcdefghij"), null, 100, 3);
+
+		assertEquals("abc\n...\nhij", comparator.getOutput());
+	}
+
+	@Test
+	void marksTruncationOnlyWhenCharactersWereDropped() throws IOException {
+		assertEquals("abcdef", StreamingOutputComparator.compare(stream("abcdef"), null, 100, 3).getOutput());
+		assertEquals("abcd", StreamingOutputComparator.compare(stream("abcd"), null, 100, 3).getOutput());
+	}
+
+	private StreamingOutputComparator compare(String output, String expected) throws IOException {
+		return StreamingOutputComparator.compare(stream(output), expected, 1024, 64);
+	}
+
+	private ByteArrayInputStream stream(String value) {
+		return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.executor.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCaseCodecTests {
+
+	@Test
+	void roundTripsCompressedPayload() {
+		String value = "3\n1 2 3\nпривет\n".repeat(1000);
+		byte[] data = value.getBytes(StandardCharsets.UTF_8);
+		byte[] payload = TestCaseCodec.compress(data);
+
+		assertTrue(payload.length < data.length / 4);
+		assertEquals(value, TestCaseCodec.decode(payload, data.length, TestCaseCodec.checksum(data)));
+		assertEquals("", TestCaseCodec.decode(TestCaseCodec.compress(new byte[0]), 0, TestCaseCodec.checksum(new byte[0])));
+	}
+
+	@Test
+	void rejectsPayloadNotMatchingManifest() {
+		byte[] data = "1 2 3\n".getBytes(StandardCharsets.UTF_8);
+		byte[] payload = TestCaseCodec.compress(data);
+
+		assertThrows(IllegalStateException.class, () -> TestCaseCodec.decode(payload, data.length, TestCaseCodec.checksum(data) + 1));
+		assertThrows(IllegalStateException.class, () -> TestCaseCodec.decode(payload, data.length - 1, TestCaseCodec.checksum(data)));
+		assertThrows(IllegalStateException.class, () -> TestCaseCodec.decode(new byte[]{1, 2, 3}, data.length, TestCaseCodec.checksum(data)));
+	}
+}